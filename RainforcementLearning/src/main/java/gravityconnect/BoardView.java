@@ -0,0 +1,171 @@
+package gravityconnect;
+
+import javax.swing.JComponent;
+import javax.swing.Timer;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.geom.Ellipse2D;
+
+// 盤面を1つのコンポーネントで描画する（マスごとの JLabel は使わない）
+// 駒の図形は大きさが変わったときだけ作り直し、駒を置いたときはそのマス（アニメーション中はその列）だけを再描画する
+public class BoardView extends JComponent {
+    private static final long serialVersionUID = 1L;
+    private static final int CELL_SIZE = 100;
+    private static final int FRAME_MILLIS = 16;
+    private static final Color GRID_COLOR = Color.BLACK;
+    private static final Color EMPTY_COLOR = Color.WHITE;
+    private static final Color X_COLOR = Color.RED;
+    private static final Color O_COLOR = Color.BLUE;
+
+    private final GravityConnectFour game;
+    private final int rows = GravityConnectFour.ROWS;
+    private final int cols = GravityConnectFour.COLS;
+    // 現在の大きさに合わせてキャッシュした配置と図形
+    private int cellSize;
+    private int originX;
+    private int originY;
+    private int layoutWidth = -1;
+    private int layoutHeight = -1;
+    private final Ellipse2D.Double[][] discs = new Ellipse2D.Double[GravityConnectFour.ROWS][GravityConnectFour.COLS];
+    private final Ellipse2D.Double fallingDisc = new Ellipse2D.Double();
+    // 落下アニメーション（animationMillis が 0 なら行わない）
+    private int animationMillis = 150;
+    private final Timer animationTimer = new Timer(FRAME_MILLIS, e -> stepAnimation());
+    private int fallingRow = -1;
+    private int fallingCol = -1;
+    private char fallingPiece;
+    private long fallingStart;
+    private double fallingY;
+
+    // game は EDT からのみ変更すること
+    public BoardView(GravityConnectFour game) {
+        this.game = game;
+        setOpaque(true);
+        setPreferredSize(new Dimension(cols * CELL_SIZE, rows * CELL_SIZE));
+    }
+
+    // 駒が落ちる時間（0 なら即座に表示する。観戦モードで高速に再生するときなど）
+    public void setAnimationMillis(int animationMillis) {
+        this.animationMillis = animationMillis;
+    }
+
+    // (row, col) に駒が置かれたことを知らせる
+    public void pieceDropped(int row, int col) {
+        finishAnimation();
+        if (row < 0) {
+            return;
+        }
+        if (animationMillis <= 0 || !isShowing()) {
+            repaintCell(row, col);
+            return;
+        }
+        fallingRow = row;
+        fallingCol = col;
+        fallingPiece = game.getBoard()[row][col];
+        fallingStart = System.nanoTime();
+        fallingY = originY - cellSize;
+        animationTimer.start();
+    }
+
+    // 盤面全体が変わったとき（リセットなど）
+    public void refresh() {
+        finishAnimation();
+        repaint();
+    }
+
+    @Override
+    protected void paintComponent(Graphics graphics) {
+        updateLayout();
+        Graphics2D g = (Graphics2D) graphics;
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+        }
+        g.setColor(getBackground() != null ? getBackground() : EMPTY_COLOR);
+        g.fillRect(clip.x, clip.y, clip.width, clip.height);
+
+        // クリップ領域にかかるマスだけを描く
+        int firstCol = Math.max(0, (clip.x - originX) / cellSize);
+        int lastCol = Math.min(cols - 1, (clip.x + clip.width - originX) / cellSize);
+        int firstRow = Math.max(0, (clip.y - originY) / cellSize);
+        int lastRow = Math.min(rows - 1, (clip.y + clip.height - originY) / cellSize);
+        char[][] board = game.getBoard();
+        for (int i = firstRow; i <= lastRow; i++) {
+            for (int j = firstCol; j <= lastCol; j++) {
+                int x = originX + j * cellSize;
+                int y = originY + i * cellSize;
+                g.setColor(EMPTY_COLOR);
+                g.fillRect(x, y, cellSize, cellSize);
+                char piece = (i == fallingRow && j == fallingCol) ? ' ' : board[i][j];
+                if (piece != ' ') {
+                    g.setColor(colorOf(piece));
+                    g.fill(discs[i][j]);
+                }
+                g.setColor(GRID_COLOR);
+                g.drawRect(x, y, cellSize - 1, cellSize - 1);
+            }
+        }
+
+        if (fallingRow >= 0) {
+            g.setColor(colorOf(fallingPiece));
+            fallingDisc.setFrame(discs[0][fallingCol].x, fallingY + (discs[0][0].y - originY),
+                    discs[0][0].width, discs[0][0].height);
+            g.fill(fallingDisc);
+        }
+    }
+
+    private void stepAnimation() {
+        double progress = (System.nanoTime() - fallingStart) / (animationMillis * 1_000_000.0);
+        int targetY = originY + fallingRow * cellSize;
+        int startY = originY - cellSize;
+        // 重力で落ちるように進み具合の2乗で位置を決める
+        fallingY = progress >= 1.0 ? targetY : startY + (targetY - startY) * progress * progress;
+        repaint(originX + fallingCol * cellSize, originY, cellSize, (fallingRow + 1) * cellSize);
+        if (progress >= 1.0) {
+            finishAnimation();
+        }
+    }
+
+    private void finishAnimation() {
+        if (fallingRow >= 0) {
+            animationTimer.stop();
+            int row = fallingRow;
+            int col = fallingCol;
+            fallingRow = -1;
+            fallingCol = -1;
+            repaint(originX + col * cellSize, originY, cellSize, (row + 1) * cellSize);
+        }
+    }
+
+    private void repaintCell(int row, int col) {
+        updateLayout();
+        repaint(originX + col * cellSize, originY + row * cellSize, cellSize, cellSize);
+    }
+
+    private void updateLayout() {
+        if (getWidth() == layoutWidth && getHeight() == layoutHeight) {
+            return;
+        }
+        layoutWidth = getWidth();
+        layoutHeight = getHeight();
+        cellSize = Math.max(1, Math.min(layoutWidth / cols, layoutHeight / rows));
+        originX = (layoutWidth - cellSize * cols) / 2;
+        originY = (layoutHeight - cellSize * rows) / 2;
+        double margin = cellSize * 0.1;
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                discs[i][j] = new Ellipse2D.Double(originX + j * cellSize + margin, originY + i * cellSize + margin,
+                        cellSize - 2 * margin, cellSize - 2 * margin);
+            }
+        }
+    }
+
+    private static Color colorOf(char piece) {
+        return piece == 'X' ? X_COLOR : O_COLOR;
+    }
+}
@@ -0,0 +1,289 @@
+package gravityconnect;
+
+import java.util.Arrays;
+
+// 状態数の上限を持つQ値テーブル（HeapQTable と同じオープンアドレス法で、配列は作成時に確保したまま大きくしない）
+// 上限に達したら CLOCK 方式で追い出す。状態ごとに参照回数（飽和する1バイトの数）を持ち、
+// 時計の針が通るたびに半分にして 0 になった状態を消す。Q値がすべて 0 の状態は1周で 0 にするので先に消える
+// 行ごとの最大値は HeapQTable と同じように持っておく
+public class BoundedQTable implements QTable {
+    private static final long EMPTY = 0L;
+    private static final int MAX_VISITS = 255;
+    // 1状態あたりのバイト数（負荷率 1/2 なのでスロット2つ分のキー、Q値と最大値、参照回数）
+    static final int BYTES_PER_STATE = 2 * (Long.BYTES + (ACTIONS + 1) * Double.BYTES + 1);
+    // 状態数の上限の最大値。Q値の配列（容量 * ACTIONS 要素）が int の添字に収まる最大の2のべき乗の容量の半分（2^27）
+    public static final int MAX_STATES = Integer.highestOneBit(Integer.MAX_VALUE / ACTIONS) / 2;
+
+    private final long[] keys;
+    private final double[] values;
+    private final double[] maxValues;
+    private final byte[] visits;
+    private final int mask;
+    private final int maxSize;
+    private int size;
+    private int hand; // 時計の針（次に調べるスロット）
+    private long evictions;
+
+    public BoundedQTable(int maxSize) {
+        if (maxSize > MAX_STATES) {
+            throw new IllegalArgumentException("at most " + MAX_STATES + " states: " + maxSize);
+        }
+        this.maxSize = Math.max(1, maxSize);
+        int capacity = Integer.highestOneBit(Math.max(16, this.maxSize * 2 - 1)) << 1;
+        keys = new long[capacity];
+        values = new double[capacity * ACTIONS];
+        maxValues = new double[capacity];
+        visits = new byte[capacity];
+        mask = capacity - 1;
+    }
+
+    // 配列の大きさが maxBytes に収まる状態数
+    public static int maxSizeForBytes(long maxBytes) {
+        // 容量は2のべき乗に切り上がるので、上限も2のべき乗に切り下げる
+        long states = Math.max(8, maxBytes / BYTES_PER_STATE);
+        return (int) Math.min(MAX_STATES, Long.highestOneBit(states));
+    }
+
+    @Override
+    public boolean contains(long key) {
+        return find(key) >= 0;
+    }
+
+    @Override
+    public boolean getRow(long key, double[] out) {
+        int slot = find(key);
+        if (slot < 0) {
+            return false;
+        }
+        touch(slot);
+        System.arraycopy(values, slot * ACTIONS, out, 0, ACTIONS);
+        return true;
+    }
+
+    @Override
+    public boolean peekRow(long key, double[] out) {
+        int slot = find(key);
+        if (slot < 0) {
+            return false;
+        }
+        System.arraycopy(values, slot * ACTIONS, out, 0, ACTIONS);
+        return true;
+    }
+
+    @Override
+    public double get(long key, int action) {
+        int slot = find(key);
+        return slot < 0 ? 0.0 : values[slot * ACTIONS + action];
+    }
+
+    @Override
+    public double maxValue(long key) {
+        int slot = find(key);
+        return slot < 0 ? 0.0 : maxValues[slot];
+    }
+
+    @Override
+    public void insert(long key) {
+        findOrInsert(key);
+    }
+
+    @Override
+    public void update(long key, int action, double target, double learningRate) {
+        int slot = findOrInsert(key);
+        touch(slot);
+        int index = slot * ACTIONS + action;
+        double old = values[index];
+        double value = old + learningRate * (target - old);
+        values[index] = value;
+        maxValues[slot] = HeapQTable.rowMax(values, maxValues[slot], slot * ACTIONS, old, value);
+    }
+
+    // 新しく入れた状態は参照回数1から始まる（update で追加したときと同じ）。上限を超えれば追い出す
+    @Override
+    public void put(long key, double[] row) {
+        int slot = findOrInsert(key);
+        System.arraycopy(row, 0, values, slot * ACTIONS, ACTIONS);
+        double max = row[0];
+        for (int i = 1; i < ACTIONS; i++) {
+            max = Math.max(max, row[i]);
+        }
+        maxValues[slot] = max;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public long slots() {
+        return keys.length;
+    }
+
+    @Override
+    public long keyAt(long slot) {
+        return keys[(int) slot];
+    }
+
+    public int maxSize() {
+        return maxSize;
+    }
+
+    // これまでに追い出した状態の数
+    public long evictions() {
+        return evictions;
+    }
+
+    // 参照回数を書き換えない読み取り専用の見方。getRow も配列に書かないので、更新が止まっている間なら
+    // 複数のスレッドから同時に読める（HyperparameterSweep の評価対局で使う）。insert と update は受け付けない
+    public QTable readOnlyView() {
+        return new ReadOnlyView();
+    }
+
+    private void touch(int slot) {
+        if ((visits[slot] & 0xFF) < MAX_VISITS) {
+            visits[slot]++;
+        }
+    }
+
+    private int find(long key) {
+        int slot = (int) HeapQTable.mix(key) & mask;
+        while (true) {
+            long k = keys[slot];
+            if (k == key) {
+                return slot;
+            }
+            if (k == EMPTY) {
+                return -1;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private int findOrInsert(long key) {
+        int slot = find(key);
+        if (slot >= 0) {
+            return slot;
+        }
+        if (size >= maxSize) {
+            evict();
+        }
+        // 追い出しでエントリが詰め直されるので、空きスロットはその後で探す
+        slot = (int) HeapQTable.mix(key) & mask;
+        while (keys[slot] != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        visits[slot] = 1;
+        size++;
+        return slot;
+    }
+
+    // 参照回数が 0 の状態が見つかるまで針を進めて1つ消す
+    private void evict() {
+        while (true) {
+            int slot = hand;
+            hand = (hand + 1) & mask;
+            if (keys[slot] == EMPTY) {
+                continue;
+            }
+            int count = visits[slot] & 0xFF;
+            if (count == 0) {
+                remove(slot);
+                evictions++;
+                return;
+            }
+            visits[slot] = (byte) (isZeroRow(slot) ? 0 : count >>> 1);
+        }
+    }
+
+    private boolean isZeroRow(int slot) {
+        int base = slot * ACTIONS;
+        for (int i = 0; i < ACTIONS; i++) {
+            if (values[base + i] != 0.0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // 線形探索の列を保ったまま消す（後ろのエントリを本来の位置に近づくよう詰める）
+    private void remove(int slot) {
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (keys[next] != EMPTY) {
+            int home = (int) HeapQTable.mix(keys[next]) & mask;
+            // home が (hole, next] の範囲になければ hole に移せる
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                visits[hole] = visits[next];
+                maxValues[hole] = maxValues[next];
+                System.arraycopy(values, next * ACTIONS, values, hole * ACTIONS, ACTIONS);
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[hole] = EMPTY;
+        visits[hole] = 0;
+        maxValues[hole] = 0.0;
+        Arrays.fill(values, hole * ACTIONS, hole * ACTIONS + ACTIONS, 0.0);
+        size--;
+    }
+
+    private final class ReadOnlyView implements QTable {
+        @Override
+        public boolean contains(long key) {
+            return BoundedQTable.this.contains(key);
+        }
+
+        @Override
+        public boolean getRow(long key, double[] out) {
+            return peekRow(key, out);
+        }
+
+        @Override
+        public boolean peekRow(long key, double[] out) {
+            return BoundedQTable.this.peekRow(key, out);
+        }
+
+        @Override
+        public double get(long key, int action) {
+            return BoundedQTable.this.get(key, action);
+        }
+
+        @Override
+        public double maxValue(long key) {
+            return BoundedQTable.this.maxValue(key);
+        }
+
+        @Override
+        public void insert(long key) {
+            throw new UnsupportedOperationException("read-only view");
+        }
+
+        @Override
+        public void update(long key, int action, double target, double learningRate) {
+            throw new UnsupportedOperationException("read-only view");
+        }
+
+        @Override
+        public void put(long key, double[] row) {
+            throw new UnsupportedOperationException("read-only view");
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public long slots() {
+            return keys.length;
+        }
+
+        @Override
+        public long keyAt(long slot) {
+            return keys[(int) slot];
+        }
+    }
+}
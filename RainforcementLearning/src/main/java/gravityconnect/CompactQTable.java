@@ -0,0 +1,201 @@
+package gravityconnect;
+
+// Q 値を float または16ビット固定小数点で持つ HeapQTable（同じオープンアドレス法・負荷率 1/2）
+// スロットごとに ACTIONS 個の Q 値とその最大値を1行（STRIDE 個）にまとめて並べるので、1回の参照で触るのは
+// キーの配列と値の配列の1行だけになる。1スロットの大きさは double の 72 バイトに対して float 40、固定小数点 24 バイト
+public class CompactQTable implements QTable {
+    private static final long EMPTY = 0L;
+    private static final int STRIDE = ACTIONS + 1; // 最後の要素が行の最大値
+    private static final int MAX_INDEX = ACTIONS;
+    private static final int MAX_CAPACITY = 1 << 27; // 値の配列の添字（容量 * STRIDE）が int に収まる最大の2のべき乗
+    private static final double FIXED_SCALE = 4096.0; // Q 値の範囲は学習で実測して [-1, 2.3] 程度
+
+    private final boolean fixed; // true なら shorts、false なら floats を使う
+    private long[] keys;
+    private float[] floats;
+    private short[] shorts;
+    private int mask;
+    private int size;
+
+    public CompactQTable(QPrecision precision, int expectedSize) {
+        if (precision == QPrecision.DOUBLE) {
+            throw new IllegalArgumentException("use HeapQTable for double precision");
+        }
+        fixed = precision == QPrecision.FIXED16;
+        int capacity = Integer.highestOneBit(Math.max(16, expectedSize * 2 - 1)) << 1;
+        allocate(capacity);
+    }
+
+    @Override
+    public boolean contains(long key) {
+        return find(key) >= 0;
+    }
+
+    @Override
+    public boolean getRow(long key, double[] out) {
+        int slot = find(key);
+        if (slot < 0) {
+            return false;
+        }
+        int base = slot * STRIDE;
+        for (int i = 0; i < ACTIONS; i++) {
+            out[i] = load(base + i);
+        }
+        return true;
+    }
+
+    @Override
+    public double get(long key, int action) {
+        int slot = find(key);
+        return slot < 0 ? 0.0 : load(slot * STRIDE + action);
+    }
+
+    @Override
+    public double maxValue(long key) {
+        int slot = find(key);
+        return slot < 0 ? 0.0 : load(slot * STRIDE + MAX_INDEX);
+    }
+
+    @Override
+    public void insert(long key) {
+        findOrInsert(key);
+    }
+
+    @Override
+    public void update(long key, int action, double target, double learningRate) {
+        int base = findOrInsert(key) * STRIDE;
+        double old = load(base + action);
+        store(base + action, old + learningRate * (target - old));
+        // 丸めた後の値で最大値を決める（getRow が返す値と食い違わないように）
+        double value = load(base + action);
+        double max = load(base + MAX_INDEX);
+        if (value >= max) {
+            store(base + MAX_INDEX, value);
+        } else if (old >= max) {
+            double newMax = load(base);
+            for (int i = 1; i < ACTIONS; i++) {
+                newMax = Math.max(newMax, load(base + i));
+            }
+            store(base + MAX_INDEX, newMax);
+        }
+    }
+
+    @Override
+    public void put(long key, double[] row) {
+        int base = findOrInsert(key) * STRIDE;
+        double max = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < ACTIONS; i++) {
+            store(base + i, row[i]);
+            max = Math.max(max, load(base + i)); // 丸めた後の値で最大値を決める
+        }
+        store(base + MAX_INDEX, max);
+    }
+
+    @Override
+    public void reserve(long states) {
+        long capacity = Math.min(MAX_CAPACITY, Long.highestOneBit(Math.max(16, states * 2 - 1)) << 1);
+        if (capacity > keys.length) {
+            resize((int) capacity);
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public long slots() {
+        return keys.length;
+    }
+
+    @Override
+    public long keyAt(long slot) {
+        return keys[(int) slot];
+    }
+
+    public int capacity() {
+        return keys.length;
+    }
+
+    private double load(int index) {
+        return fixed ? shorts[index] / FIXED_SCALE : floats[index];
+    }
+
+    private void store(int index, double value) {
+        if (fixed) {
+            long scaled = Math.round(value * FIXED_SCALE);
+            shorts[index] = (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, scaled));
+        } else {
+            floats[index] = (float) value;
+        }
+    }
+
+    private int find(long key) {
+        int slot = (int) HeapQTable.mix(key) & mask;
+        while (true) {
+            long k = keys[slot];
+            if (k == key) {
+                return slot;
+            }
+            if (k == EMPTY) {
+                return -1;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private int findOrInsert(long key) {
+        int slot = (int) HeapQTable.mix(key) & mask;
+        while (true) {
+            long k = keys[slot];
+            if (k == key) {
+                return slot;
+            }
+            if (k == EMPTY) {
+                break;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if ((size + 1) * 2 > keys.length) {
+            resize(keys.length << 1);
+            return findOrInsert(key);
+        }
+        keys[slot] = key;
+        size++;
+        return slot;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        if (fixed) {
+            shorts = new short[capacity * STRIDE];
+        } else {
+            floats = new float[capacity * STRIDE];
+        }
+        mask = capacity - 1;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        float[] oldFloats = floats;
+        short[] oldShorts = shorts;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key == EMPTY) {
+                continue;
+            }
+            int slot = (int) HeapQTable.mix(key) & mask;
+            while (keys[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            if (fixed) {
+                System.arraycopy(oldShorts, i * STRIDE, shorts, slot * STRIDE, STRIDE);
+            } else {
+                System.arraycopy(oldFloats, i * STRIDE, floats, slot * STRIDE, STRIDE);
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package gravityconnect;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// 対局記録ファイルの形式と読み出し
+// ファイルの先頭に 8 バイトのヘッダ（MAGIC）、続いて1局ずつ
+//   1 バイト: 下位6ビットが手数、上位2ビットが勝者（0: 引き分け, 1: 'X', 2: 'O'）
+//   手数ぶんのバイト: 各手の列番号
+// が並ぶ。書き込みは GameRecordWriter が追記で行う
+public final class GameLog {
+    static final long MAGIC = 0x4743344741004d31L; // "GC4GA\0M1"
+    static final int HEADER_BYTES = 8;
+    static final int MAX_RECORD_BYTES = 1 + GravityConnectFour.ROWS * GravityConnectFour.COLS;
+    private static final long WINDOW_BYTES = 1L << 30; // 一度にマップする大きさ
+
+    private GameLog() {
+    }
+
+    // 1局ごとに呼ばれる。moves は呼び出しごとに上書きされる作業領域なので保持しないこと
+    public interface Visitor {
+        void visit(long index, char winner, byte[] moves, int length);
+    }
+
+    static int encodeHeader(int length, char winner) {
+        int result = winner == 'X' ? 1 : winner == 'O' ? 2 : 0;
+        return length | (result << 6);
+    }
+
+    static char decodeWinner(int header) {
+        int result = (header >>> 6) & 3;
+        return result == 1 ? 'X' : result == 2 ? 'O' : ' ';
+    }
+
+    // ファイルをメモリマップして先頭から全局を読む（ヒープには1局分の作業領域しか使わない）
+    public static long scan(Path path, Visitor visitor) throws IOException {
+        byte[] moves = new byte[GravityConnectFour.ROWS * GravityConnectFour.COLS];
+        long index = 0;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES || channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES).getLong() != MAGIC) {
+                throw new IOException("not a game log: " + path);
+            }
+            long position = HEADER_BYTES;
+            while (position < size) {
+                // 局の途中で窓が切れたら、その局の先頭から次の窓をマップする
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                        Math.min(WINDOW_BYTES, size - position));
+                int limit = window.limit();
+                int offset = 0;
+                while (offset < limit) {
+                    int header = window.get(offset) & 0xFF;
+                    int length = header & 0x3F;
+                    if (offset + 1 + length > limit) {
+                        break;
+                    }
+                    window.get(offset + 1, moves, 0, length);
+                    visitor.visit(index++, decodeWinner(header), moves, length);
+                    offset += 1 + length;
+                }
+                if (offset == 0) {
+                    break; // 末尾の書きかけの局
+                }
+                position += offset;
+            }
+        }
+        return index;
+    }
+}
@@ -0,0 +1,144 @@
+package gravityconnect;
+
+import javax.swing.JFrame;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// 学習中に記録した対局ファイルを集計・再生する
+public class GameLogTool {
+    // 使い方: java gravityconnect.GameLogTool <記録ファイル> [--opening=<列>] [--winner=X|O|draw] [--print=<n>] [--spectate=<n>]
+    //   --opening   初手がこの列の対局だけを対象にする
+    //   --winner    勝者がこの側（draw なら引き分け）の対局だけを対象にする
+    //   --print     対象の対局のうち先頭 n 局の最終盤面をテキストで表示する（ウィンドウを使わない）
+    //   --spectate  対象の対局のうち先頭 n 局をウィンドウで続けて再生する
+    //   --delay     観戦モードで1手ごとに待つミリ秒（既定は50）
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0 || args[0].startsWith("--")) {
+            System.out.println("usage: GameLogTool <game log> [--opening=<col>] [--winner=X|O|draw] [--print=<n>] [--spectate=<n>]");
+            return;
+        }
+        String opening = Main.option(args, "opening", null);
+        String winnerOption = Main.option(args, "winner", null);
+        int openingCol = opening != null ? Integer.parseInt(opening) : -1;
+        char winnerFilter = winnerOption == null ? 0 : winnerOption.equalsIgnoreCase("draw") ? ' '
+                : Character.toUpperCase(winnerOption.charAt(0));
+        int print = Integer.parseInt(Main.option(args, "print", "0"));
+        int spectate = Integer.parseInt(Main.option(args, "spectate", "0"));
+        int delay = Integer.parseInt(Main.option(args, "delay", "50"));
+
+        long[] wins = new long[3]; // X, O, 引き分け
+        long[] openings = new long[GravityConnectFour.COLS];
+        long[] matched = new long[2]; // 対象の局数, 対象の手数の合計
+        GravityConnectFour board = new GravityConnectFour();
+        List<byte[]> spectated = new ArrayList<>();
+        long start = System.nanoTime();
+        long total = GameLog.scan(Paths.get(args[0]), (index, winner, moves, length) -> {
+            if (openingCol >= 0 && (length == 0 || moves[0] != openingCol)) {
+                return;
+            }
+            if (winnerFilter != 0 && winner != winnerFilter) {
+                return;
+            }
+            long n = matched[0]++;
+            matched[1] += length;
+            wins[winner == 'X' ? 0 : winner == 'O' ? 1 : 2]++;
+            if (length > 0) {
+                openings[moves[0]]++;
+            }
+            if (n < print) {
+                replay(board, moves, length);
+                System.out.println("#" + index + " winner: " + (winner == ' ' ? "draw" : String.valueOf(winner))
+                        + ", moves: " + movesText(moves, length));
+                printBoard(board);
+            }
+            if (n < spectate) {
+                spectated.add(Arrays.copyOf(moves, length));
+            }
+        });
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long games = matched[0];
+        System.out.printf("%d / %d games matched (%.0f games/sec)%n", games, total, total / seconds);
+        if (games > 0) {
+            System.out.printf("X wins %.1f%%, O wins %.1f%%, draws %.1f%%, average length %.1f%n",
+                    100.0 * wins[0] / games, 100.0 * wins[1] / games, 100.0 * wins[2] / games,
+                    (double) matched[1] / games);
+            StringBuilder line = new StringBuilder("opening column:");
+            for (int col = 0; col < openings.length; col++) {
+                line.append(String.format(" %d=%.1f%%", col, 100.0 * openings[col] / games));
+            }
+            System.out.println(line);
+        }
+        if (!spectated.isEmpty()) {
+            SwingUtilities.invokeLater(() -> spectate(spectated, delay));
+        }
+    }
+
+    private static void replay(GravityConnectFour board, byte[] moves, int length) {
+        board.reset();
+        for (int i = 0; i < length; i++) {
+            board.dropPiece(moves[i], i % 2 == 0 ? 'X' : 'O');
+        }
+    }
+
+    private static void printBoard(GravityConnectFour board) {
+        for (char[] row : board.getBoard()) {
+            StringBuilder line = new StringBuilder("|");
+            for (char cell : row) {
+                line.append(cell == ' ' ? '.' : cell);
+            }
+            System.out.println(line.append('|'));
+        }
+    }
+
+    private static String movesText(byte[] moves, int length) {
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            text.append(moves[i]);
+        }
+        return text.toString();
+    }
+
+    // 記録した対局をアニメーションなしで1手ずつ表示する（EDT で呼ぶ）
+    private static void spectate(List<byte[]> games, int delay) {
+        GravityConnectFour board = new GravityConnectFour();
+        BoardView view = new BoardView(board);
+        view.setAnimationMillis(0);
+        JFrame frame = new JFrame("Gravity Connect Four - Replay");
+        frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        frame.add(view);
+        frame.pack();
+        frame.setVisible(true);
+
+        int[] position = new int[2]; // 対局の番号, 手数
+        Timer timer = new Timer(Math.max(1, delay), null);
+        timer.addActionListener(e -> {
+            byte[] moves = games.get(position[0]);
+            if (position[1] < moves.length) {
+                board.dropPiece(moves[position[1]], position[1] % 2 == 0 ? 'X' : 'O');
+                view.pieceDropped(board.getLastRow(), board.getLastCol());
+                position[1]++;
+                return;
+            }
+            // 終局面を少し見せてから次の対局へ
+            if (++position[1] < moves.length + 10) {
+                return;
+            }
+            if (++position[0] == games.size()) {
+                timer.stop();
+                return;
+            }
+            position[1] = 0;
+            board.reset();
+            view.refresh();
+            frame.setTitle("Gravity Connect Four - Replay " + (position[0] + 1) + " / " + games.size());
+        });
+        frame.setTitle("Gravity Connect Four - Replay 1 / " + games.size());
+        timer.start();
+    }
+}
@@ -0,0 +1,65 @@
+package gravityconnect;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// 学習中の対局を GameLog の形式でファイルに追記する
+// バッファが一杯になったときだけ書き出すので、1局あたりのコストはバイトのコピー程度
+public class GameRecordWriter implements AutoCloseable {
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+    private long games;
+
+    public GameRecordWriter(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        if (channel.size() == 0) {
+            buffer.putLong(GameLog.MAGIC);
+        }
+    }
+
+    // 終局した game の着手履歴を1局として書く（複数スレッドから呼んでよい）
+    public synchronized void record(GravityConnectFour game, char winner) {
+        int length = game.getMoveCount();
+        if (buffer.remaining() < GameLog.MAX_RECORD_BYTES) {
+            flushBuffer();
+        }
+        buffer.put((byte) GameLog.encodeHeader(length, winner));
+        for (int i = 0; i < length; i++) {
+            buffer.put((byte) game.getMove(i));
+        }
+        games++;
+    }
+
+    public synchronized long games() {
+        return games;
+    }
+
+    public synchronized void flush() {
+        flushBuffer();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        flushBuffer();
+        channel.close();
+    }
+
+    private void flushBuffer() {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        buffer.clear();
+    }
+}
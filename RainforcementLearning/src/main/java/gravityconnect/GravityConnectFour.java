@@ -0,0 +1,322 @@
+package gravityconnect;
+
+import java.util.Arrays;
+
+public class GravityConnectFour {
+    public static final int ROWS = 6;
+    public static final int COLS = 7;
+    // ビットボードでは1列あたり ROWS + 1 ビットを使う（最上位の1ビットは番兵で常に0）
+    public static final int COLUMN_BITS = ROWS + 1;
+    // 各列の最下段ビット
+    public static final long BOTTOM_MASK = bottomMask();
+    // 盤面上の全マス
+    public static final long BOARD_MASK = BOTTOM_MASK * ((1L << ROWS) - 1);
+
+    private final int rows = ROWS;
+    private final int cols = COLS;
+    private char[][] board; // 互換性のための文字表現（ビットボードと常に同期）
+    private long xMask; // 'X' の駒
+    private long oMask; // 'O' の駒
+    private final int[] heights = new int[COLS]; // 各列に積まれた駒の数
+    private final int[] moves = new int[ROWS * COLS]; // undo 用の着手履歴（列番号）
+    private int moveCount;
+
+    public GravityConnectFour() {
+        board = new char[rows][cols];
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                board[i][j] = ' ';
+            }
+        }
+    }
+
+    public char[][] getBoard() {
+        return board;
+    }
+
+    public boolean dropPiece(int col, char piece) {
+        int height = heights[col];
+        if (height >= rows) {
+            return false;
+        }
+        long bit = 1L << (col * COLUMN_BITS + height);
+        if (piece == 'X') {
+            xMask |= bit;
+        } else {
+            oMask |= bit;
+        }
+        board[rows - 1 - height][col] = piece;
+        heights[col] = height + 1;
+        moves[moveCount++] = col;
+        return true;
+    }
+
+    // 直前の着手を取り消し、その列番号を返す（着手がなければ -1）
+    public int undo() {
+        if (moveCount == 0) {
+            return -1;
+        }
+        int col = moves[--moveCount];
+        int height = --heights[col];
+        long bit = 1L << (col * COLUMN_BITS + height);
+        xMask &= ~bit;
+        oMask &= ~bit;
+        board[rows - 1 - height][col] = ' ';
+        return col;
+    }
+
+    public boolean checkWin(char piece) {
+        return hasFour(piece == 'X' ? xMask : oMask);
+    }
+
+    // (row, col) の駒を通る4方向の並びだけを数えて勝利を判定する（読むのは最大24マス）
+    public boolean checkWinAt(int row, int col) {
+        char piece = board[row][col];
+        if (piece == ' ') {
+            return false;
+        }
+        long mask = getMask(piece);
+        int height = rows - 1 - row; // ビットボード上の段（下から数える）
+        return countLine(mask, col, height, 1, 0) >= 4 // 横
+                || countLine(mask, col, height, 0, 1) >= 4 // 縦
+                || countLine(mask, col, height, 1, 1) >= 4 // 斜め（右上がり）
+                || countLine(mask, col, height, 1, -1) >= 4; // 斜め（右下がり）
+    }
+
+    // 直前に置いた駒で4つ並んだか
+    // 直前の着手より前に4つ並びはないので、置いた側のビットボード全体を調べれば
+    // その駒を通る並びだけを調べたことになる（checkWinAt で数えるより速い）
+    public boolean lastMoveWon() {
+        if (moveCount == 0) {
+            return false;
+        }
+        int col = moves[moveCount - 1];
+        long bit = 1L << (col * COLUMN_BITS + heights[col] - 1);
+        return hasFour((xMask & bit) != 0 ? xMask : oMask);
+    }
+
+    // 直前に置いた駒の行（getBoard() の添字、着手がなければ -1）
+    public int getLastRow() {
+        return moveCount == 0 ? -1 : rows - heights[moves[moveCount - 1]];
+    }
+
+    // 直前に置いた駒の列（着手がなければ -1）
+    public int getLastCol() {
+        return moveCount == 0 ? -1 : moves[moveCount - 1];
+    }
+
+    // (col, height) から (dc, dh) 方向とその逆方向に続く同じ駒の数（自身を含む、最大7）
+    private int countLine(long mask, int col, int height, int dc, int dh) {
+        int count = 1;
+        for (int c = col + dc, h = height + dh; isSet(mask, c, h); c += dc, h += dh) {
+            count++;
+        }
+        for (int c = col - dc, h = height - dh; isSet(mask, c, h); c -= dc, h -= dh) {
+            count++;
+        }
+        return count;
+    }
+
+    private static boolean isSet(long mask, int col, int height) {
+        return col >= 0 && col < COLS && height >= 0 && height < ROWS
+                && (mask & (1L << (col * COLUMN_BITS + height))) != 0;
+    }
+
+    // 駒を実際には置かずに、col に piece を置くと4つ並ぶかを判定する
+    public boolean isWinningMove(int col, char piece) {
+        if (heights[col] >= rows) {
+            return false;
+        }
+        long bit = 1L << (col * COLUMN_BITS + heights[col]);
+        return hasFour(getMask(piece) | bit);
+    }
+
+    public boolean isFull() {
+        return moveCount == rows * cols;
+    }
+
+    public boolean canPlay(int col) {
+        return heights[col] < rows;
+    }
+
+    // 置ける列のビットマスク（ビット col が 1 なら置ける）
+    public int legalMoves() {
+        int legal = 0;
+        for (int col = 0; col < cols; col++) {
+            legal |= ((heights[col] - rows) >>> 31) << col;
+        }
+        return legal;
+    }
+
+    public int getHeight(int col) {
+        return heights[col];
+    }
+
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    // index 手目（0 始まり）に置いた列
+    public int getMove(int index) {
+        return moves[index];
+    }
+
+    public long getMask(char piece) {
+        return piece == 'X' ? xMask : oMask;
+    }
+
+    // 盤面を一意に表す64ビットのキー（各列の高さの番兵ビットと 'X' の駒で表現する）
+    public long getKey() {
+        return xMask + (xMask | oMask) + BOTTOM_MASK;
+    }
+
+    public void reset() {
+        while (moveCount > 0) {
+            undo();
+        }
+    }
+
+    // other と同じ局面（着手履歴を含む）にする
+    public void copyFrom(GravityConnectFour other) {
+        xMask = other.xMask;
+        oMask = other.oMask;
+        moveCount = other.moveCount;
+        System.arraycopy(other.heights, 0, heights, 0, cols);
+        System.arraycopy(other.moves, 0, moves, 0, moveCount);
+        for (int i = 0; i < rows; i++) {
+            System.arraycopy(other.board[i], 0, board[i], 0, cols);
+        }
+    }
+
+    public void setBoard(char[][] newBoard) {
+        reset();
+        // 下の段から積み直すことで高さと着手履歴を再構築する
+        for (int j = 0; j < cols; j++) {
+            for (int i = rows - 1; i >= 0 && newBoard[i][j] != ' '; i--) {
+                dropPiece(j, newBoard[i][j]);
+            }
+        }
+    }
+
+    // ビットボードから盤面を作り直す（VectorEnv の局面を写すときなど。着手履歴は列ごとに下から積んだ順になる）
+    public void setMasks(long x, long o) {
+        reset();
+        long occupied = x | o;
+        for (int j = 0; j < cols; j++) {
+            for (int h = 0; h < rows; h++) {
+                long bit = 1L << (j * COLUMN_BITS + h);
+                if ((occupied & bit) == 0) {
+                    break;
+                }
+                dropPiece(j, (x & bit) != 0 ? 'X' : 'O');
+            }
+        }
+    }
+
+    // 4つ並びがあるかをシフトとマスクで判定する
+    public static boolean hasFour(long mask) {
+        // 横
+        long m = mask & (mask >> COLUMN_BITS);
+        if ((m & (m >> (2 * COLUMN_BITS))) != 0) {
+            return true;
+        }
+        // 斜め（右上がり）
+        m = mask & (mask >> (COLUMN_BITS + 1));
+        if ((m & (m >> (2 * (COLUMN_BITS + 1)))) != 0) {
+            return true;
+        }
+        // 斜め（右下がり）
+        m = mask & (mask >> (COLUMN_BITS - 1));
+        if ((m & (m >> (2 * (COLUMN_BITS - 1)))) != 0) {
+            return true;
+        }
+        // 縦
+        m = mask & (mask >> 1);
+        return (m & (m >> 2)) != 0;
+    }
+
+    // 文字表現の盤面から指定した駒のビットボードを作る
+    public static long toMask(char[][] board, char piece) {
+        long mask = 0L;
+        for (int i = 0; i < ROWS; i++) {
+            for (int j = 0; j < COLS; j++) {
+                if (board[i][j] == piece) {
+                    mask |= 1L << (j * COLUMN_BITS + (ROWS - 1 - i));
+                }
+            }
+        }
+        return mask;
+    }
+
+    // 文字表現の盤面から getKey() と同じキーを作る
+    public static long key(char[][] board) {
+        long x = 0L;
+        long occupied = 0L;
+        for (int i = 0; i < ROWS; i++) {
+            for (int j = 0; j < COLS; j++) {
+                if (board[i][j] != ' ') {
+                    long bit = 1L << (j * COLUMN_BITS + (ROWS - 1 - i));
+                    occupied |= bit;
+                    if (board[i][j] == 'X') {
+                        x |= bit;
+                    }
+                }
+            }
+        }
+        return x + occupied + BOTTOM_MASK;
+    }
+
+    // 中央の列を軸に左右反転したキー（列ごとのビット列を入れ替えるだけでよい）
+    public static long mirror(long key) {
+        long columnMask = (1L << COLUMN_BITS) - 1;
+        long mirrored = 0L;
+        for (int j = 0; j < COLS; j++) {
+            mirrored |= ((key >>> (j * COLUMN_BITS)) & columnMask) << ((COLS - 1 - j) * COLUMN_BITS);
+        }
+        return mirrored;
+    }
+
+    // getKey() の値から駒のあるマスを取り出す（各列で最も上の1ビットが番兵、その下が駒）
+    // 'X' の駒は key - occupied(key) - BOTTOM_MASK で得られる
+    public static long occupied(long key) {
+        long columnMask = (1L << COLUMN_BITS) - 1;
+        long occupied = 0L;
+        for (int j = 0; j < COLS; j++) {
+            long column = (key >>> (j * COLUMN_BITS)) & columnMask;
+            occupied |= (Long.highestOneBit(column) - 1) << (j * COLUMN_BITS);
+        }
+        return occupied;
+    }
+
+    // 長さ length の縦・横・斜めの並びを、並びごとのビット位置（col * COLUMN_BITS + 下からの高さ）の配列で返す
+    public static int[][] lines(int length) {
+        int[][] directions = { { 1, 0 }, { 0, 1 }, { 1, 1 }, { 1, -1 } };
+        int[][] lines = new int[4 * ROWS * COLS][];
+        int count = 0;
+        for (int col = 0; col < COLS; col++) {
+            for (int height = 0; height < ROWS; height++) {
+                for (int[] d : directions) {
+                    int endCol = col + (length - 1) * d[0];
+                    int endHeight = height + (length - 1) * d[1];
+                    if (endCol >= COLS || endHeight < 0 || endHeight >= ROWS) {
+                        continue;
+                    }
+                    int[] cells = new int[length];
+                    for (int k = 0; k < length; k++) {
+                        cells[k] = (col + k * d[0]) * COLUMN_BITS + height + k * d[1];
+                    }
+                    lines[count++] = cells;
+                }
+            }
+        }
+        return Arrays.copyOf(lines, count);
+    }
+
+    private static long bottomMask() {
+        long mask = 0L;
+        for (int j = 0; j < COLS; j++) {
+            mask |= 1L << (j * COLUMN_BITS);
+        }
+        return mask;
+    }
+}
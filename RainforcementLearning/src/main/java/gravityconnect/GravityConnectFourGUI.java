@@ -0,0 +1,223 @@
+package gravityconnect;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class GravityConnectFourGUI extends JFrame {
+    private final int rows = 6;
+    private final int cols = 7;
+    private JButton[] buttons;
+    private GravityConnectFour game;
+    private Player agent;
+    private boolean playerTurn = true;
+    private JPanel buttonPanel;
+    private BoardView boardView;
+    // エージェントの思考は EDT の外で行い、結果だけを invokeLater で盤面に反映する
+    private final ExecutorService agentExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "agent-move");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final int moveTimeBudgetMillis;
+    private Future<?> pendingMove; // 思考中の手（EDT からのみ触る）
+    private Timer moveTimer;
+    private int moveId; // 思考を頼むたびとリセットのたびに増やし、今待っている手以外の結果を捨てる
+
+    public GravityConnectFourGUI(Player agent) {
+        this(agent, 5000);
+    }
+
+    // moveTimeBudgetMillis を過ぎても手が返らなければ思考を取り消して代わりの手を指す
+    public GravityConnectFourGUI(Player agent, int moveTimeBudgetMillis) {
+        game = new GravityConnectFour();
+        this.agent = agent;
+        this.moveTimeBudgetMillis = moveTimeBudgetMillis;
+
+        // GUI setup
+        setTitle("Gravity Connect Four");
+        setSize(700, 600);
+        setLayout(new BorderLayout());
+        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+
+        buttonPanel = new JPanel();
+        buttonPanel.setLayout(new GridLayout(1, cols));
+        buttons = new JButton[cols];
+
+        // Add buttons for column selection
+        for (int i = 0; i < cols; i++) {
+            final int col = i;
+            buttons[i] = new JButton("Drop");
+            buttons[i].addActionListener(new ActionListener() {
+                @Override
+                public void actionPerformed(ActionEvent e) {
+                    if (playerTurn) {
+                        handlePlayerMove(col);
+                    }
+                }
+            });
+            buttonPanel.add(buttons[i]);
+        }
+
+        // The game board is painted by a single component
+        boardView = new BoardView(game);
+
+        add(buttonPanel, BorderLayout.NORTH);
+        add(boardView, BorderLayout.CENTER);
+        setVisible(true);
+    }
+
+    private void handlePlayerMove(int col) {
+        if (dropPiece(col, 'X')) {
+            updateBoard();
+            if (game.lastMoveWon()) {
+                JOptionPane.showMessageDialog(this, "Player wins!");
+                resetGame();
+                return;
+            } else if (isFull()) {
+                JOptionPane.showMessageDialog(this, "It's a draw!");
+                resetGame();
+                return;
+            }
+            playerTurn = false;
+            handleAgentMove();
+        } else {
+            JOptionPane.showMessageDialog(this, "Column is full! Try another column.");
+        }
+    }
+
+    private void handleAgentMove() {
+        setInputEnabled(false);
+        // 思考スレッドには盤面のコピーを渡し、EDT が持つ盤面には触らせない
+        GravityConnectFour snapshot = new GravityConnectFour();
+        snapshot.copyFrom(game);
+        int id = ++moveId;
+        pendingMove = agentExecutor.submit(() -> {
+            int action = agent.chooseAction(snapshot);
+            if (!Thread.currentThread().isInterrupted()) { // 取り消された思考の結果は返さない
+                SwingUtilities.invokeLater(() -> applyAgentMove(id, action));
+            }
+        });
+        moveTimer = new Timer(moveTimeBudgetMillis, e -> applyAgentMove(id, fallbackMove()));
+        moveTimer.setRepeats(false);
+        moveTimer.start();
+    }
+
+    // 思考結果（または持ち時間切れの代わりの手）を EDT で盤面に反映する
+    private void applyAgentMove(int id, int action) {
+        if (id != moveId || pendingMove == null) {
+            return; // 前の局面への手（リセット済み、または既に代わりの手を指した）
+        }
+        cancelPendingMove();
+        if (!dropPiece(action, 'O')) {
+            dropPiece(fallbackMove(), 'O');
+        }
+        updateBoard();
+        if (game.lastMoveWon()) {
+            JOptionPane.showMessageDialog(this, "Agent wins!");
+            resetGame();
+        } else if (isFull()) {
+            JOptionPane.showMessageDialog(this, "It's a draw!");
+            resetGame();
+        }
+        playerTurn = true;
+        setInputEnabled(true);
+    }
+
+    private void cancelPendingMove() {
+        if (pendingMove != null) {
+            pendingMove.cancel(true);
+            pendingMove = null;
+        }
+        if (moveTimer != null) {
+            moveTimer.stop();
+            moveTimer = null;
+        }
+    }
+
+    // 中央に近い列から、置ける最初の列
+    private int fallbackMove() {
+        for (int offset = 0; offset < cols; offset++) {
+            int col = cols / 2 + ((offset % 2 == 0) ? offset / 2 : -(offset / 2 + 1));
+            if (game.canPlay(col)) {
+                return col;
+            }
+        }
+        return 0;
+    }
+
+    private void setInputEnabled(boolean enabled) {
+        for (JButton button : buttons) {
+            button.setEnabled(enabled);
+        }
+    }
+
+    private boolean dropPiece(int col, char piece) {
+        return game.dropPiece(col, piece);
+    }
+
+    // 直前に置いた駒のマスだけを描き直す
+    private void updateBoard() {
+        boardView.pieceDropped(game.getLastRow(), game.getLastCol());
+    }
+
+    private boolean isFull() {
+        return game.isFull();
+    }
+
+    private void resetGame() {
+        moveId++;
+        cancelPendingMove();
+        game.reset();
+        boardView.refresh();
+        playerTurn = true;
+        setInputEnabled(true);
+    }
+
+    // 使い方: java gravityconnect.GravityConnectFourGUI [Q値テーブルのファイル] [--search=<ミリ秒>] [--mcts=<ミリ秒>] [--move-budget=<ミリ秒>]
+    //   --search       学習済みエージェントの代わりに、1手あたり指定時間の探索で指す相手と対戦する
+    //   --mcts         学習済みエージェントの代わりに、1手あたり指定時間のモンテカルロ木探索（全コアを使う）で指す相手と対戦する
+    //   --book         学習済みエージェントが序盤・終盤に引く局面データベース
+    //   --move-budget  エージェントの1手の持ち時間（過ぎたら中央寄りの列に指す。既定は5000）
+    public static void main(String[] args) throws IOException {
+        String searchMillis = Main.option(args, "search", null);
+        String mctsMillis = Main.option(args, "mcts", null);
+        int moveBudget = Integer.parseInt(Main.option(args, "move-budget", "5000"));
+        Player agent;
+        if (searchMillis != null) {
+            agent = new SearchPlayer(Long.parseLong(searchMillis));
+        } else if (mctsMillis != null) {
+            agent = new MctsPlayer(Long.parseLong(mctsMillis), Runtime.getRuntime().availableProcessors());
+        } else {
+            QLearningAgent learned = loadAgent(args.length > 0 && !args[0].startsWith("--") ? args[0] : MappedQTable.DEFAULT_FILE);
+            String book = Main.option(args, "book", null);
+            if (book != null) {
+                learned.setBook(PositionBook.open(Paths.get(book)));
+            }
+            agent = learned;
+        }
+        SwingUtilities.invokeLater(() -> new GravityConnectFourGUI(agent, moveBudget));
+    }
+
+    private static QLearningAgent loadAgent(String file) throws IOException {
+        Path path = Paths.get(file);
+        QTable qTable;
+        if (Files.exists(path)) {
+            qTable = MappedQTable.openReadOnly(path);
+        } else {
+            System.out.println("Q-table not found, the agent plays untrained: " + path);
+            qTable = new HeapQTable();
+        }
+        QLearningAgent agent = new QLearningAgent(qTable);
+        agent.setExplorationRate(0.0); // 対戦では学習済みの方策だけを使う
+        return agent;
+    }
+}
@@ -0,0 +1,193 @@
+package gravityconnect;
+
+// オープンアドレス法（線形探索）のQ値テーブル
+// キーは long[]、Q値は1本の double[] にスロットごと ACTIONS 個ずつ並べて格納し、エントリごとの割り当てを行わない
+// 行ごとの最大値も持っておき、maxValue は7列を走査せずに返す
+public class HeapQTable implements QTable {
+    private static final long EMPTY = 0L; // getKey() は番兵ビットを含むので 0 にはならない
+    private static final int DEFAULT_CAPACITY = 1 << 12;
+    private static final int MAX_CAPACITY = 1 << 28; // values の添字（容量 * ACTIONS）が int に収まる最大の2のべき乗
+
+    private long[] keys;
+    private double[] values;
+    private double[] maxValues; // スロットごとの Q 値の最大値
+    private int mask;
+    private int size;
+
+    public HeapQTable() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public HeapQTable(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedSize * 2 - 1)) << 1;
+        allocate(capacity);
+    }
+
+    @Override
+    public boolean contains(long key) {
+        return find(key) >= 0;
+    }
+
+    @Override
+    public boolean getRow(long key, double[] out) {
+        int slot = find(key);
+        if (slot < 0) {
+            return false;
+        }
+        System.arraycopy(values, slot * ACTIONS, out, 0, ACTIONS);
+        return true;
+    }
+
+    @Override
+    public double get(long key, int action) {
+        int slot = find(key);
+        return slot < 0 ? 0.0 : values[slot * ACTIONS + action];
+    }
+
+    @Override
+    public double maxValue(long key) {
+        int slot = find(key);
+        return slot < 0 ? 0.0 : maxValues[slot];
+    }
+
+    @Override
+    public void insert(long key) {
+        findOrInsert(key);
+    }
+
+    @Override
+    public void update(long key, int action, double target, double learningRate) {
+        int slot = findOrInsert(key);
+        int index = slot * ACTIONS + action;
+        double old = values[index];
+        double value = old + learningRate * (target - old);
+        values[index] = value;
+        maxValues[slot] = rowMax(values, maxValues[slot], slot * ACTIONS, old, value);
+    }
+
+    @Override
+    public void put(long key, double[] row) {
+        int slot = findOrInsert(key);
+        System.arraycopy(row, 0, values, slot * ACTIONS, ACTIONS);
+        double max = row[0];
+        for (int i = 1; i < ACTIONS; i++) {
+            max = Math.max(max, row[i]);
+        }
+        maxValues[slot] = max;
+    }
+
+    @Override
+    public void reserve(long states) {
+        long capacity = Math.min(MAX_CAPACITY, Long.highestOneBit(Math.max(16, states * 2 - 1)) << 1);
+        if (capacity > keys.length) {
+            resize((int) capacity);
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public long slots() {
+        return keys.length;
+    }
+
+    @Override
+    public long keyAt(long slot) {
+        return keys[(int) slot];
+    }
+
+    public int capacity() {
+        return keys.length;
+    }
+
+    private int find(long key) {
+        int slot = (int) mix(key) & mask;
+        while (true) {
+            long k = keys[slot];
+            if (k == key) {
+                return slot;
+            }
+            if (k == EMPTY) {
+                return -1;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private int findOrInsert(long key) {
+        int slot = (int) mix(key) & mask;
+        while (true) {
+            long k = keys[slot];
+            if (k == key) {
+                return slot;
+            }
+            if (k == EMPTY) {
+                break;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if ((size + 1) * 2 > keys.length) {
+            // 負荷率が 1/2 を超える前に拡張する
+            resize(keys.length << 1);
+            return findOrInsert(key);
+        }
+        keys[slot] = key;
+        size++;
+        return slot;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new double[capacity * ACTIONS];
+        maxValues = new double[capacity];
+        mask = capacity - 1;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        double[] oldValues = values;
+        double[] oldMaxValues = maxValues;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key == EMPTY) {
+                continue;
+            }
+            int slot = (int) mix(key) & mask;
+            while (keys[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            System.arraycopy(oldValues, i * ACTIONS, values, slot * ACTIONS, ACTIONS);
+            maxValues[slot] = oldMaxValues[i];
+        }
+    }
+
+    // 1列が old から value に変わった行の新しい最大値。最大だった列が下がったときだけ走査し直す
+    static double rowMax(double[] values, double max, int base, double old, double value) {
+        if (value >= max) {
+            return value;
+        }
+        if (old < max) {
+            return max;
+        }
+        double newMax = values[base];
+        for (int i = 1; i < ACTIONS; i++) {
+            newMax = Math.max(newMax, values[base + i]);
+        }
+        return newMax;
+    }
+
+    // 64ビットキーを混ぜてからスロット番号にする（下位ビットだけでは列0の情報しか持たないため）
+    static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+}
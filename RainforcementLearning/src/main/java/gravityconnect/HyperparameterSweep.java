@@ -0,0 +1,205 @@
+package gravityconnect;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+// QLearningAgent のハイパーパラメータの組み合わせを同時に学習させ、ラウンドごとに Tournament で強さを測る
+// 学習も対戦も1つの ForkJoinPool で行う。各ラウンドの後、Elo の信頼区間の上端が最良の設定の下端に届かない設定は
+// 打ち切ってテーブルを捨てるので、後のラウンドほど残った設定に時間とメモリを回せる
+public class HyperparameterSweep {
+    // 使い方: java gravityconnect.HyperparameterSweep [--learning-rates=<a,b,...>] [--discounts=<...>]
+    //                [--exploration-decays=<...>] [--min-explorations=<...>] [--rounds=<n>] [--episodes=<n>]
+    //                [--games=<n>] [--opening-plies=<n>] [--search-depth=<n>] [--threads=<n>] [--seed=<n>]
+    //   --learning-rates など  試す値をカンマ区切りで並べる（全組み合わせを試す。既定は 0.05,0.1,0.2 / 0.9,0.95 / 0.995 / 0.05,0.1）
+    //   --rounds         学習と評価を繰り返す回数（既定は5）
+    //   --episodes       1ラウンドに1つの設定が学習するエピソード数（既定は30000）
+    //   --games          1組あたりの評価対局数（既定は100）
+    //   --opening-plies  評価対局の最初にランダムに指す手数（既定は2）
+    //   --search-depth   基準にする探索プレイヤーの深さ（既定は2）
+    //   --threads        ForkJoinPool の並列数（既定はコア数）
+    //   Q値テーブルは Main と同じく --max-states / --max-memory / --precision で選べる（設定が多いときはメモリの上限を付ける）
+    public static void main(String[] args) throws InterruptedException {
+        double[] learningRates = values(Main.option(args, "learning-rates", "0.05,0.1,0.2"));
+        double[] discounts = values(Main.option(args, "discounts", "0.9,0.95"));
+        double[] decays = values(Main.option(args, "exploration-decays", "0.995"));
+        double[] minExplorations = values(Main.option(args, "min-explorations", "0.05,0.1"));
+        int rounds = Integer.parseInt(Main.option(args, "rounds", "5"));
+        int episodes = Integer.parseInt(Main.option(args, "episodes", "30000"));
+        int games = Integer.parseInt(Main.option(args, "games", "100"));
+        int openingPlies = Integer.parseInt(Main.option(args, "opening-plies", "2"));
+        int searchDepth = Integer.parseInt(Main.option(args, "search-depth", "2"));
+        int threads = Integer.parseInt(Main.option(args, "threads",
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+        long seed = Long.parseLong(Main.option(args, "seed", "1"));
+
+        List<Config> configs = new ArrayList<>();
+        for (double learningRate : learningRates) {
+            for (double discount : discounts) {
+                for (double decay : decays) {
+                    for (double minExploration : minExplorations) {
+                        configs.add(new Config(args, learningRate, discount, decay, minExploration,
+                                seed + configs.size()));
+                    }
+                }
+            }
+        }
+        System.out.printf("%d configurations, %d rounds of %d episodes, %d threads%n",
+                configs.size(), rounds, episodes, threads);
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        long start = System.nanoTime();
+        try {
+            for (int round = 1; round <= rounds && configs.size() > 1; round++) {
+                long roundStart = System.nanoTime();
+                train(pool, configs, episodes);
+                double trainSeconds = (System.nanoTime() - roundStart) / 1e9;
+
+                Tournament tournament = new Tournament(pool, games, openingPlies, seed * 1_000 + round);
+                tournament.add("random", (side, random) -> game -> randomMove(game, random));
+                tournament.add("search depth " + searchDepth,
+                        (side, random) -> new SearchPlayer(60_000, searchDepth, 1 << 16));
+                for (Config config : configs) {
+                    tournament.add(config.name(), config::player);
+                }
+                List<Tournament.Standing> standings = tournament.play();
+                System.out.printf("%n== round %d: %d configurations, %d episodes each (train %.1f s, evaluate %.1f s)%n",
+                        round, configs.size(), round * episodes, trainSeconds,
+                        (System.nanoTime() - roundStart) / 1e9 - trainSeconds);
+                for (Tournament.Standing standing : standings) {
+                    System.out.println(standing);
+                }
+                cut(configs, standings);
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        System.out.printf("%nsweep finished in %.1f s. best configuration: %s%n",
+                (System.nanoTime() - start) / 1e9, configs.get(0).flags());
+    }
+
+    // 残っている設定をそれぞれ episodes エピソードずつ学習させる
+    private static void train(ForkJoinPool pool, List<Config> configs, int episodes) throws InterruptedException {
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (Config config : configs) {
+            tasks.add(() -> {
+                for (int episode = 0; episode < episodes; episode++) {
+                    config.selfPlay.playEpisode();
+                }
+                return null;
+            });
+        }
+        for (Future<Void> task : pool.invokeAll(tasks)) {
+            try {
+                task.get();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("training failed", e.getCause());
+            }
+        }
+    }
+
+    // Elo の95%信頼区間の上端が、最良の設定の下端より低い設定を外す。残った設定はレーティングの高い順に並べ直す
+    private static void cut(List<Config> configs, List<Tournament.Standing> standings) {
+        double bestLower = Double.NEGATIVE_INFINITY;
+        List<Config> ranked = new ArrayList<>();
+        List<Tournament.Standing> rankedStandings = new ArrayList<>();
+        for (Tournament.Standing standing : standings) {
+            for (Config config : configs) {
+                if (config.name().equals(standing.name)) {
+                    ranked.add(config);
+                    rankedStandings.add(standing);
+                    bestLower = Math.max(bestLower, standing.elo - standing.error);
+                }
+            }
+        }
+        configs.clear();
+        for (int i = 0; i < ranked.size(); i++) {
+            Tournament.Standing standing = rankedStandings.get(i);
+            if (standing.elo + standing.error >= bestLower) {
+                configs.add(ranked.get(i));
+            } else {
+                System.out.println("cut: " + standing.name);
+            }
+        }
+    }
+
+    private static int randomMove(GravityConnectFour game, Random random) {
+        int legal = game.legalMoves();
+        for (int skip = random.nextInt(Integer.bitCount(legal)); skip > 0; skip--) {
+            legal &= legal - 1;
+        }
+        return Integer.numberOfTrailingZeros(legal);
+    }
+
+    private static double[] values(String list) {
+        String[] parts = list.split(",");
+        double[] values = new double[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            values[i] = Double.parseDouble(parts[i].trim());
+        }
+        return values;
+    }
+
+    // 1つの設定と、その設定で学習する 'X' 側・'O' 側のエージェント
+    private static final class Config {
+        final double learningRate;
+        final double discount;
+        final double decay;
+        final double minExploration;
+        final QTable tableX;
+        final QTable tableO;
+        final QTable evaluationX;
+        final QTable evaluationO;
+        final SelfPlay selfPlay;
+
+        Config(String[] args, double learningRate, double discount, double decay, double minExploration, long seed) {
+            this.learningRate = learningRate;
+            this.discount = discount;
+            this.decay = decay;
+            this.minExploration = minExploration;
+            Random random = new Random(seed);
+            tableX = Main.createTable(args);
+            tableO = Main.createTable(args);
+            evaluationX = forEvaluation(tableX);
+            evaluationO = forEvaluation(tableO);
+            selfPlay = new SelfPlay(agent(tableX, new Random(random.nextLong())),
+                    agent(tableO, new Random(random.nextLong())));
+        }
+
+        private QLearningAgent agent(QTable table, Random random) {
+            QLearningAgent agent = new QLearningAgent(table, random);
+            agent.setLearningRate(learningRate);
+            agent.setDiscountFactor(discount);
+            agent.setExplorationDecay(decay);
+            agent.setMinExplorationRate(minExploration);
+            return agent;
+        }
+
+        // 評価中はテーブルを誰も更新しないので、HeapQTable などはそのまま複数の対局から読める
+        // BoundedQTable は getRow で参照回数を書き換えるので、書き換えない読み取り専用の見方を使う
+        private static QTable forEvaluation(QTable table) {
+            return table instanceof BoundedQTable ? ((BoundedQTable) table).readOnlyView() : table;
+        }
+
+        // 評価用に、学習済みのテーブルを探索なしで使うプレイヤー
+        Player player(char side, Random random) {
+            QLearningAgent agent = new QLearningAgent(side == 'X' ? evaluationX : evaluationO, random);
+            agent.setExplorationRate(0.0);
+            return agent;
+        }
+
+        String name() {
+            return String.format("lr=%s gamma=%s decay=%s min-eps=%s", learningRate, discount, decay, minExploration);
+        }
+
+        String flags() {
+            return String.format("--learning-rate=%s --discount=%s --exploration-decay=%s --min-exploration=%s",
+                    learningRate, discount, decay, minExploration);
+        }
+    }
+}
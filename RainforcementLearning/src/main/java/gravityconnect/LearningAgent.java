@@ -0,0 +1,21 @@
+package gravityconnect;
+
+// 自己対戦で学習するプレイヤー（SelfPlay と ReplayLearner から使う）
+// 状態は GravityConnectFour.getKey() の64ビットキーで受け渡す
+public interface LearningAgent extends Player {
+    // 遷移 (boardKey, action, reward, nextBoardKey) から学習する
+    void updateQTable(long boardKey, int action, double reward, long nextBoardKey);
+
+    // terminal なら次状態の価値を見ずに報酬だけを目標にする
+    void updateQTable(long boardKey, int action, double reward, long nextBoardKey, boolean terminal);
+
+    // currentPlayer が action を指した直後の game に対する報酬
+    double getReward(GravityConnectFour game, char currentPlayer, boolean gameOver, int action);
+
+    double getExplorationRate();
+
+    void setExplorationRate(double explorationRate);
+
+    // 1エピソードごとに探索率を下げる
+    void updateExplorationRate();
+}
@@ -0,0 +1,312 @@
+package gravityconnect;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.Random;
+
+public class Main {
+    // 使い方: java gravityconnect.Main [--qtable=<file>] [--threads=<n>] [--episodes=<n>]
+    //   --qtable    'O' 側エージェントのQ値テーブルをメモリマップトファイルに保存する（既存なら続きから学習）
+    //   --threads   自己対戦を並列に行うスレッド数（既定は1）
+    //   --episodes  学習するエピソード数（既定は150000）
+    //   --replay    経験再生のバッファ容量（0 なら毎手その場で更新する。1スレッドのときのみ）
+    //   --batch     経験再生で1回に適用する遷移数（既定は32）
+    //   --replay-ratio    追加された遷移1件あたりの再生回数（既定は1.0）
+    //   --learner-thread  true なら経験再生の学習を専用スレッドで行い、対局と並行させる
+    //   --search-opponent  'X' 側を1手あたり指定ミリ秒の探索プレイヤーにして 'O' 側だけを学習する（1スレッドのときのみ）
+    //   --search-depth     探索プレイヤーの最大深さ（既定は制限なし）
+    //   --mcts-opponent    'X' 側を1手あたり指定ミリ秒のモンテカルロ木探索プレイヤーにする（--mcts-threads で並列数を指定。既定は1）
+    //   --metrics   学習の指標を表示する間隔（秒。0 なら表示しない。既定は10。JMX と JFR にも出す）
+    //   --max-states  ヒープ上のQ値テーブル1つあたりの状態数の上限（超えたら参照の少ない状態を追い出す。既定は無制限）
+    //   --max-memory  --max-states の代わりにテーブル1つあたりのバイト数で上限を決める（例: 512m, 2g）
+    //   --precision   ヒープ上のQ値テーブルの Q 値の精度（double, float, fixed16。既定は double。--max-states とは併用しない）
+    //   --agent     学習エージェントの種類（table: Q値テーブル, ntuple: n-tuple ネットワーク。既定は table。1スレッドのときのみ）
+    //   --book      学習エージェント（table）が序盤・終盤に引く局面データベース（PositionBookGenerator で作る）
+    //   --record    学習中の対局をこのファイルに追記する（GameLogTool で集計・再生できる）
+    //   --checkpoint  'O' 側（table）のQ値テーブルを学習中に定期的にこのファイルへ書き出す（1スレッドのときのみ）
+    //   --checkpoint-every     チェックポイントの間隔（エピソード数。既定は10000）
+    //   --checkpoint-compress  true ならチェックポイントを gzip で圧縮する
+    //   --resume    学習を始める前に 'O' 側のQ値テーブルをこのチェックポイントから読み込む
+    //   --learning-rate, --discount, --exploration-decay, --min-exploration
+    //               学習エージェント（table）のハイパーパラメータ（既定は 0.1, 0.9, 0.995, 0.1。HyperparameterSweep で選べる）
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String qTableFile = option(args, "qtable", null);
+        int threads = Integer.parseInt(option(args, "threads", "1"));
+        int episodes = Integer.parseInt(option(args, "episodes", "150000"));
+        int replayCapacity = Integer.parseInt(option(args, "replay", "0"));
+        if (threads > 1 && (option(args, "checkpoint", null) != null || option(args, "resume", null) != null)) {
+            // 並列の学習はテーブルを StripedQTable で共有するので、チェックポイントの対象外。黙って無視せずに止める
+            throw new IllegalArgumentException("--checkpoint and --resume need --threads=1");
+        }
+        MappedQTable mappedTable = null;
+        if (qTableFile != null) {
+            mappedTable = MappedQTable.open(Paths.get(qTableFile), 1 << 20);
+        }
+        String recordFile = option(args, "record", null);
+        GameRecordWriter recorder = recordFile != null ? new GameRecordWriter(Paths.get(recordFile)) : null;
+        long metricsSeconds = Long.parseLong(option(args, "metrics", "10"));
+        TrainingMetrics metrics = null;
+        MetricsReporter reporter = null;
+        if (metricsSeconds > 0) {
+            metrics = new TrainingMetrics();
+            metrics.registerMBean();
+            reporter = new MetricsReporter(metrics, metricsSeconds * 1000);
+            reporter.start();
+        }
+
+        long start = System.nanoTime();
+        if (threads > 1) {
+            // エージェントごとのテーブルを全スレッドで共有する（メモリマップトファイルは1つのロックで守る）
+            int maxStates = maxStates(args);
+            QPrecision precision = precision(args);
+            QTable tableX = maxStates > 0
+                    ? StripedQTable.bounded(threads * 4, maxStates)
+                    : StripedQTable.onHeap(threads * 4, precision);
+            QTable tableO = mappedTable != null
+                    ? new StripedQTable(new QTable[] { mappedTable })
+                    : maxStates > 0
+                            ? StripedQTable.bounded(threads * 4, maxStates)
+                            : StripedQTable.onHeap(threads * 4, precision);
+            ParallelTrainer trainer = new ParallelTrainer(tableX, tableO, threads, System.nanoTime());
+            trainer.setRecorder(recorder);
+            trainer.setMetrics(metrics);
+            trainer.train(episodes);
+        } else if (replayCapacity > 0) {
+            trainWithReplay(args, mappedTable, recorder, metrics, episodes, replayCapacity);
+        } else {
+            Player agent1 = createOpponent(args);
+            QTable tableO = mappedTable != null ? mappedTable : createTable(args);
+            LearningAgent agent2 = createLearner(args, tableO);
+            QTableCheckpointer checkpointer = checkpointer(args, agent2, tableO);
+            SelfPlay selfPlay = new SelfPlay(agent1, agent2);
+            selfPlay.setRecorder(recorder);
+            selfPlay.setMetrics(metrics);
+            if (metrics != null) {
+                metrics.watch(agent2 instanceof QLearningAgent ? tableO : null, agent2);
+            }
+            for (int episode = 0; episode < episodes; episode++) {
+                selfPlay.playEpisode();
+                if (checkpointer != null) {
+                    checkpointer.onEpisode();
+                }
+            }
+            finishCheckpoints(args, checkpointer);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        if (reporter != null) {
+            reporter.stop();
+            reporter.report(); // 最後の区間
+        }
+
+        System.out.println("エージェント同士のトレーニングが完了しました！");
+        System.out.printf("%d エピソード / %.1f 秒 (%.0f エピソード/秒, %d スレッド)%n",
+                episodes, seconds, episodes / seconds, threads);
+        if (mappedTable != null) {
+            mappedTable.close();
+            System.out.println("Q値テーブルを保存しました: " + qTableFile + " (" + mappedTable.size() + " 状態)");
+        }
+        if (recorder != null) {
+            recorder.close();
+            System.out.println("対局を記録しました: " + recordFile + " (" + recorder.games() + " 局)");
+        }
+    }
+
+    // 対局で得た遷移をバッファに貯め、バッチ単位でQ値を更新する
+    private static void trainWithReplay(String[] args, MappedQTable mappedTable, GameRecordWriter recorder,
+            TrainingMetrics metrics, int episodes, int replayCapacity)
+            throws IOException, InterruptedException {
+        int batchSize = Integer.parseInt(option(args, "batch", "32"));
+        double replayRatio = Double.parseDouble(option(args, "replay-ratio", "1.0"));
+        boolean learnerThread = Boolean.parseBoolean(option(args, "learner-thread", "false"));
+
+        QTable tableX = createTable(args);
+        QTable tableO = mappedTable != null ? mappedTable : createTable(args);
+        if (learnerThread) {
+            // 学習スレッドが更新している間も対局側が参照するのでロックで守る
+            tableX = new StripedQTable(new QTable[] { tableX });
+            tableO = new StripedQTable(new QTable[] { tableO });
+        }
+        Player agent1 = createOpponent(args, tableX);
+        LearningAgent agent2 = createLearner(args, tableO);
+        ReplayBuffer replay1 = new ReplayBuffer(replayCapacity, 0.25);
+        ReplayBuffer replay2 = new ReplayBuffer(replayCapacity, 0.25);
+        ReplayLearner learner1 = agent1 instanceof LearningAgent
+                ? new ReplayLearner((LearningAgent) agent1, replay1, batchSize, replayRatio, new Random())
+                : null;
+        ReplayLearner learner2 = new ReplayLearner(agent2, replay2, batchSize, replayRatio, new Random());
+        QTableCheckpointer checkpointer = checkpointer(args, agent2, tableO);
+        SelfPlay selfPlay = new SelfPlay(agent1, agent2);
+        selfPlay.setReplayBuffers(replay1, replay2);
+        selfPlay.setRecorder(recorder);
+        selfPlay.setMetrics(metrics);
+        if (metrics != null) {
+            metrics.watch(agent2 instanceof QLearningAgent ? tableO : null, agent2);
+            if (learner1 != null) {
+                learner1.setMetrics(metrics);
+            }
+            learner2.setMetrics(metrics);
+        }
+
+        if (learnerThread) {
+            if (learner1 != null) {
+                learner1.start();
+            }
+            learner2.start();
+        }
+        for (int episode = 0; episode < episodes; episode++) {
+            selfPlay.playEpisode();
+            if (!learnerThread) {
+                if (learner1 != null) {
+                    learner1.catchUp();
+                }
+                learner2.catchUp();
+            }
+            if (checkpointer != null) {
+                checkpointer.onEpisode();
+            }
+        }
+        if (learner1 != null) {
+            learner1.stop();
+        }
+        learner2.stop();
+        finishCheckpoints(args, checkpointer);
+    }
+
+    // --resume があれば table に読み込み、--checkpoint があれば table を書き出す QTableCheckpointer を返す
+    // n-tuple エージェントは Q値テーブルを使わないので対象外
+    private static QTableCheckpointer checkpointer(String[] args, LearningAgent agent, QTable table)
+            throws IOException {
+        if (!(agent instanceof QLearningAgent)) {
+            return null;
+        }
+        String resumeFile = option(args, "resume", null);
+        if (resumeFile != null) {
+            long start = System.nanoTime();
+            long states = QTableCheckpointer.load(Paths.get(resumeFile), table);
+            System.out.printf("チェックポイントを読み込みました: %s (%d 状態, %.1f 秒)%n",
+                    resumeFile, states, (System.nanoTime() - start) / 1e9);
+        }
+        String file = option(args, "checkpoint", null);
+        if (file == null) {
+            return null;
+        }
+        int every = Integer.parseInt(option(args, "checkpoint-every", "10000"));
+        boolean compress = Boolean.parseBoolean(option(args, "checkpoint-compress", "false"));
+        return new QTableCheckpointer(table, Paths.get(file), Math.max(1, every), compress);
+    }
+
+    // 学習の終わりの状態を書き出す
+    private static void finishCheckpoints(String[] args, QTableCheckpointer checkpointer) throws IOException {
+        if (checkpointer == null) {
+            return;
+        }
+        checkpointer.checkpointNow();
+        checkpointer.close();
+        System.out.println("チェックポイントを保存しました: " + option(args, "checkpoint", null)
+                + " (" + checkpointer.checkpoints() + " 回"
+                + (checkpointer.failures() > 0 ? "、失敗 " + checkpointer.failures() + " 回" : "") + ")");
+    }
+
+    // 'X' 側のプレイヤー。--search-opponent / --mcts-opponent があれば学習しない探索プレイヤーにする
+    private static Player createOpponent(String[] args) {
+        return createOpponent(args, createTable(args));
+    }
+
+    private static Player createOpponent(String[] args, QTable qTable) {
+        String searchMillis = option(args, "search-opponent", null);
+        String mctsMillis = option(args, "mcts-opponent", null);
+        if (mctsMillis != null) {
+            return new MctsPlayer(Long.parseLong(mctsMillis), Integer.parseInt(option(args, "mcts-threads", "1")));
+        }
+        if (searchMillis == null) {
+            return createLearner(args, qTable);
+        }
+        int depth = Integer.parseInt(option(args, "search-depth",
+                String.valueOf(GravityConnectFour.ROWS * GravityConnectFour.COLS)));
+        return new SearchPlayer(Long.parseLong(searchMillis), depth, 1 << 20);
+    }
+
+    // --agent で選んだ学習エージェント（n-tuple なら qTable は使わない）
+    private static LearningAgent createLearner(String[] args, QTable qTable) {
+        if ("ntuple".equals(option(args, "agent", "table"))) {
+            return new NTupleAgent();
+        }
+        QLearningAgent agent = new QLearningAgent(qTable);
+        agent.setBook(book(args));
+        configure(args, agent);
+        return agent;
+    }
+
+    // 指定されたハイパーパラメータだけを設定する
+    static void configure(String[] args, QLearningAgent agent) {
+        String learningRate = option(args, "learning-rate", null);
+        String discount = option(args, "discount", null);
+        String decay = option(args, "exploration-decay", null);
+        String minExploration = option(args, "min-exploration", null);
+        if (learningRate != null) {
+            agent.setLearningRate(Double.parseDouble(learningRate));
+        }
+        if (discount != null) {
+            agent.setDiscountFactor(Double.parseDouble(discount));
+        }
+        if (decay != null) {
+            agent.setExplorationDecay(Double.parseDouble(decay));
+        }
+        if (minExploration != null) {
+            agent.setMinExplorationRate(Double.parseDouble(minExploration));
+        }
+    }
+
+    // --book の局面データベース（全エージェントで1つのマップを共有する）
+    private static PositionBook book;
+
+    private static synchronized PositionBook book(String[] args) {
+        String file = option(args, "book", null);
+        if (file != null && book == null) {
+            try {
+                book = PositionBook.open(Paths.get(file));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return book;
+    }
+
+    // ヒープ上のQ値テーブル。--max-states / --max-memory があれば上限付き、なければ --precision の精度にする
+    static QTable createTable(String[] args) {
+        int maxStates = maxStates(args);
+        return maxStates > 0 ? new BoundedQTable(maxStates) : precision(args).newTable();
+    }
+
+    private static QPrecision precision(String[] args) {
+        return QPrecision.valueOf(option(args, "precision", "double").toUpperCase());
+    }
+
+    private static int maxStates(String[] args) {
+        String memory = option(args, "max-memory", null);
+        if (memory != null) {
+            return BoundedQTable.maxSizeForBytes(parseBytes(memory));
+        }
+        return Integer.parseInt(option(args, "max-states", "0"));
+    }
+
+    // 512m, 2g のような k/m/g 付きのバイト数
+    static long parseBytes(String text) {
+        char unit = Character.toLowerCase(text.charAt(text.length() - 1));
+        int shift = unit == 'k' ? 10 : unit == 'm' ? 20 : unit == 'g' ? 30 : 0;
+        String digits = shift == 0 ? text : text.substring(0, text.length() - 1);
+        return Long.parseLong(digits) << shift;
+    }
+
+    // --name=value 形式の引数を取り出す
+    static String option(String[] args, String name, String defaultValue) {
+        String prefix = "--" + name + "=";
+        for (String arg : args) {
+            if (arg.startsWith(prefix)) {
+                return arg.substring(prefix.length());
+            }
+        }
+        return defaultValue;
+    }
+}
@@ -0,0 +1,301 @@
+package gravityconnect;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+// メモリマップトファイル上の固定レイアウトのQ値テーブル（オープンアドレス法・線形探索）
+// ファイルは 64 バイトのヘッダの後に 64 バイトのエントリ（キー 8 バイト + Q値 7 個）が capacity 個並ぶ
+// ヒープの外に置かれるのでヒープサイズを超えて成長でき、再起動後は読み込みなしでそのまま開ける
+public class MappedQTable implements QTable, AutoCloseable {
+    public static final String DEFAULT_FILE = "qtable-o.bin";
+
+    private static final long MAGIC = 0x4743345154424c31L; // "GC4QTBL1"
+    private static final long EMPTY = 0L;
+    private static final int ENTRY_BYTES = 64;
+    private static final int HEADER_BYTES = ENTRY_BYTES;
+    private static final int MAGIC_OFFSET = 0;
+    private static final int ACTIONS_OFFSET = 8;
+    private static final int CAPACITY_OFFSET = 16;
+    private static final int SIZE_OFFSET = 24;
+    // MappedByteBuffer は 2GB までなので 1GB ごとに分けてマップする（エントリは境界をまたがない）
+    private static final int SEGMENT_SHIFT = 30;
+    private static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+
+    private final Path path;
+    private final boolean readOnly;
+    private FileChannel channel;
+    private MappedByteBuffer[] segments;
+    private long capacity;
+    private long mask;
+    private long size;
+
+    private MappedQTable(Path path, boolean readOnly) {
+        this.path = path;
+        this.readOnly = readOnly;
+    }
+
+    // 学習用に読み書き可能で開く。ファイルがなければ initialCapacity 以上のエントリ数で作成する
+    public static MappedQTable open(Path path, long initialCapacity) throws IOException {
+        MappedQTable table = new MappedQTable(path, false);
+        if (Files.exists(path) && Files.size(path) > 0) {
+            table.map();
+        } else {
+            table.create(Long.highestOneBit(Math.max(16, initialCapacity - 1)) << 1);
+        }
+        return table;
+    }
+
+    // 対戦用に読み取り専用で開く。ページは参照されたときに読み込まれるので開くコストはほぼない
+    public static MappedQTable openReadOnly(Path path) throws IOException {
+        MappedQTable table = new MappedQTable(path, true);
+        table.map();
+        return table;
+    }
+
+    @Override
+    public boolean contains(long key) {
+        return find(key) >= 0;
+    }
+
+    @Override
+    public boolean getRow(long key, double[] out) {
+        long slot = find(key);
+        if (slot < 0) {
+            return false;
+        }
+        long offset = valueOffset(slot, 0);
+        for (int i = 0; i < ACTIONS; i++) {
+            out[i] = getDouble(offset + i * 8L);
+        }
+        return true;
+    }
+
+    @Override
+    public double get(long key, int action) {
+        long slot = find(key);
+        return slot < 0 ? 0.0 : getDouble(valueOffset(slot, action));
+    }
+
+    @Override
+    public double maxValue(long key) {
+        long slot = find(key);
+        if (slot < 0) {
+            return 0.0;
+        }
+        long offset = valueOffset(slot, 0);
+        double max = getDouble(offset);
+        for (int i = 1; i < ACTIONS; i++) {
+            max = Math.max(max, getDouble(offset + i * 8L));
+        }
+        return max;
+    }
+
+    @Override
+    public void insert(long key) {
+        findOrInsert(key);
+    }
+
+    @Override
+    public void update(long key, int action, double target, double learningRate) {
+        long offset = valueOffset(findOrInsert(key), action);
+        double q = getDouble(offset);
+        putDouble(offset, q + learningRate * (target - q));
+    }
+
+    @Override
+    public void put(long key, double[] row) {
+        long offset = valueOffset(findOrInsert(key), 0);
+        for (int i = 0; i < ACTIONS; i++) {
+            putDouble(offset + i * 8L, row[i]);
+        }
+    }
+
+    @Override
+    public void reserve(long states) {
+        long newCapacity = Long.highestOneBit(Math.max(16, states * 2 - 1)) << 1;
+        if (newCapacity > capacity) {
+            if (readOnly) {
+                throw new IllegalStateException("read-only Q-table: " + path);
+            }
+            try {
+                grow(newCapacity);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return (int) Math.min(Integer.MAX_VALUE, size);
+    }
+
+    @Override
+    public long slots() {
+        return capacity;
+    }
+
+    @Override
+    public long keyAt(long slot) {
+        return getLong(entryOffset(slot));
+    }
+
+    public long capacity() {
+        return capacity;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    // 変更をディスクに書き出す
+    public void force() {
+        if (!readOnly) {
+            for (MappedByteBuffer segment : segments) {
+                segment.force();
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        segments = null;
+        channel.close();
+    }
+
+    private long find(long key) {
+        long slot = HeapQTable.mix(key) & mask;
+        while (true) {
+            long k = getLong(entryOffset(slot));
+            if (k == key) {
+                return slot;
+            }
+            if (k == EMPTY) {
+                return -1;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private long findOrInsert(long key) {
+        if (readOnly) {
+            throw new IllegalStateException("read-only Q-table: " + path);
+        }
+        long slot = HeapQTable.mix(key) & mask;
+        while (true) {
+            long k = getLong(entryOffset(slot));
+            if (k == key) {
+                return slot;
+            }
+            if (k == EMPTY) {
+                break;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if ((size + 1) * 2 > capacity) {
+            // 負荷率が 1/2 を超える前に倍の大きさのファイルへ移し替える
+            try {
+                grow(capacity << 1);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return findOrInsert(key);
+        }
+        putLong(entryOffset(slot), key);
+        size++;
+        putLong(SIZE_OFFSET, size);
+        return slot;
+    }
+
+    private void create(long newCapacity) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        capacity = newCapacity;
+        mask = capacity - 1;
+        size = 0;
+        mapSegments(FileChannel.MapMode.READ_WRITE);
+        putLong(MAGIC_OFFSET, MAGIC);
+        putLong(ACTIONS_OFFSET, ACTIONS);
+        putLong(CAPACITY_OFFSET, capacity);
+        putLong(SIZE_OFFSET, 0);
+    }
+
+    private void map() throws IOException {
+        if (readOnly) {
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+        } else {
+            channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+        MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+        if (header.getLong(MAGIC_OFFSET) != MAGIC || header.getLong(ACTIONS_OFFSET) != ACTIONS) {
+            channel.close();
+            throw new IOException("not a Q-table file: " + path);
+        }
+        capacity = header.getLong(CAPACITY_OFFSET);
+        mask = capacity - 1;
+        size = header.getLong(SIZE_OFFSET);
+        mapSegments(readOnly ? FileChannel.MapMode.READ_ONLY : FileChannel.MapMode.READ_WRITE);
+    }
+
+    private void mapSegments(FileChannel.MapMode mode) throws IOException {
+        long fileSize = HEADER_BYTES + capacity * ENTRY_BYTES;
+        int count = (int) ((fileSize + SEGMENT_MASK) >>> SEGMENT_SHIFT);
+        segments = new MappedByteBuffer[count];
+        for (int i = 0; i < count; i++) {
+            long position = (long) i << SEGMENT_SHIFT;
+            segments[i] = channel.map(mode, position, Math.min(SEGMENT_MASK + 1, fileSize - position));
+        }
+    }
+
+    private void grow(long newCapacity) throws IOException {
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        MappedQTable bigger = new MappedQTable(tmp, false);
+        bigger.create(newCapacity);
+        for (long slot = 0; slot < capacity; slot++) {
+            long offset = entryOffset(slot);
+            long key = getLong(offset);
+            if (key == EMPTY) {
+                continue;
+            }
+            long target = bigger.findOrInsert(key);
+            for (int i = 0; i < ACTIONS; i++) {
+                bigger.putDouble(bigger.valueOffset(target, i), getDouble(valueOffset(slot, i)));
+            }
+        }
+        bigger.close();
+        close();
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        map();
+    }
+
+    private static long entryOffset(long slot) {
+        return HEADER_BYTES + slot * ENTRY_BYTES;
+    }
+
+    private long valueOffset(long slot, int action) {
+        return entryOffset(slot) + 8 + action * 8L;
+    }
+
+    private long getLong(long offset) {
+        return segments[(int) (offset >>> SEGMENT_SHIFT)].getLong((int) (offset & SEGMENT_MASK));
+    }
+
+    private double getDouble(long offset) {
+        return segments[(int) (offset >>> SEGMENT_SHIFT)].getDouble((int) (offset & SEGMENT_MASK));
+    }
+
+    private void putLong(long offset, long value) {
+        segments[(int) (offset >>> SEGMENT_SHIFT)].putLong((int) (offset & SEGMENT_MASK), value);
+    }
+
+    private void putDouble(long offset, double value) {
+        segments[(int) (offset >>> SEGMENT_SHIFT)].putDouble((int) (offset & SEGMENT_MASK), value);
+    }
+}
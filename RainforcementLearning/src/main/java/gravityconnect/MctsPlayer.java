@@ -0,0 +1,246 @@
+package gravityconnect;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// モンテカルロ木探索（UCT）で手を選ぶプレイヤー。複数スレッドが1つの木を共有して探索する
+// ノードはオブジェクトにせず、作成時に確保した配列の番号で表す。展開したノードの子は7列分を連続した番号に置く
+// 選択で通ったノードには先に訪問回数だけを足しておき（仮想的な負け）、他のスレッドが同じ枝に集まらないようにする
+public class MctsPlayer implements Player, AutoCloseable {
+    private static final int COLS = GravityConnectFour.COLS;
+    private static final double EXPLORATION = 1.4;
+    private static final int UNEXPANDED = 0;
+    private static final int EXPANDING = -1;
+    private static final int ILLEGAL = -1; // 置けない列の子の訪問回数
+
+    private final long timeBudgetNanos;
+    private final long maxPlayouts;
+    private final int threads;
+    private final ExecutorService executor;
+    // ノードごとの統計（そのノードに入る手を指した側から見た値。勝ち 2、引き分け 1、負け 0 の合計）
+    private final AtomicIntegerArray visits;
+    private final AtomicLongArray values;
+    private final AtomicIntegerArray children; // 子の先頭の番号（UNEXPANDED / EXPANDING なら未展開）
+    private final AtomicInteger nodeCount = new AtomicInteger();
+    private final AtomicLong playouts = new AtomicLong();
+    private final GravityConnectFour root = new GravityConnectFour();
+    private final SplittableRandom seeds = new SplittableRandom();
+    private volatile long deadline;
+
+    public MctsPlayer(long timeBudgetMillis, int threads) {
+        this(timeBudgetMillis, Long.MAX_VALUE, threads, 1 << 20);
+    }
+
+    // maxPlayouts か時間のどちらかを使い切るまで探索する。maxNodes を使い切った後は木を広げずにプレイアウトだけを続ける
+    public MctsPlayer(long timeBudgetMillis, long maxPlayouts, int threads, int maxNodes) {
+        this.timeBudgetNanos = timeBudgetMillis * 1_000_000L;
+        this.maxPlayouts = maxPlayouts;
+        this.threads = threads;
+        visits = new AtomicIntegerArray(maxNodes);
+        values = new AtomicLongArray(maxNodes);
+        children = new AtomicIntegerArray(maxNodes);
+        executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "mcts-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public int chooseAction(GravityConnectFour game) {
+        char side = game.getMoveCount() % 2 == 0 ? 'X' : 'O';
+        int legal = game.legalMoves();
+        if (legal == 0) {
+            return 0; // 盤面が埋まっている
+        }
+        for (int col = 0; col < COLS; col++) {
+            if (game.isWinningMove(col, side)) {
+                return col;
+            }
+        }
+
+        root.copyFrom(game);
+        visits.set(0, 0);
+        values.set(0, 0L);
+        children.set(0, UNEXPANDED);
+        nodeCount.set(1);
+        playouts.set(0);
+        deadline = System.nanoTime() + timeBudgetNanos;
+        List<Future<?>> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            SplittableRandom random = seeds.split();
+            workers.add(executor.submit(() -> search(random)));
+        }
+        // 割り込まれたら（GUI の持ち時間切れなど）探索を打ち切るが、ワーカーが木を触り終えるまでは待つ
+        // （待たずに戻ると、次の chooseAction が木を初期化している間も前のワーカーが書き込む）
+        boolean interrupted = false;
+        for (Future<?> worker : workers) {
+            while (true) {
+                try {
+                    worker.get();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                    deadline = System.nanoTime(); // ワーカーは次のプレイアウトの前に止まる
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("search worker failed", e.getCause());
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        // 最も多く訪れた子を選ぶ
+        int base = children.get(0);
+        int best = Integer.numberOfTrailingZeros(legal);
+        if (base > 0) {
+            int bestVisits = -1;
+            for (int col = 0; col < COLS; col++) {
+                int n = visits.get(base + col);
+                if (n > bestVisits) {
+                    bestVisits = n;
+                    best = col;
+                }
+            }
+        }
+        return best;
+    }
+
+    // 直前の chooseAction で行ったプレイアウトの数
+    public long getPlayouts() {
+        return playouts.get();
+    }
+
+    // 直前の chooseAction で使ったノードの数
+    public int getNodeCount() {
+        return nodeCount.get();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private void search(SplittableRandom random) {
+        GravityConnectFour board = new GravityConnectFour();
+        board.copyFrom(root);
+        int rootMoves = board.getMoveCount();
+        int[] path = new int[GravityConnectFour.ROWS * COLS + 1];
+        while (playouts.getAndIncrement() < maxPlayouts && System.nanoTime() < deadline) {
+            // 選択: 子の UCT 値が最大の列を辿る。通ったノードには訪問回数を先に足す（仮想的な負け）
+            int depth = 0;
+            int node = 0;
+            path[depth++] = node;
+            visits.incrementAndGet(node);
+            char winner = 0;
+            while (true) {
+                if (board.getMoveCount() > rootMoves && board.lastMoveWon()) {
+                    winner = moverOf(board);
+                    break;
+                }
+                if (board.isFull()) {
+                    winner = ' ';
+                    break;
+                }
+                int base = children.get(node);
+                if (base <= 0) {
+                    if (visits.get(node) > 1 || node == 0) {
+                        base = expand(node, board);
+                    }
+                    if (base <= 0) {
+                        break; // 未展開（または展開中・ノード切れ）ならここからプレイアウト
+                    }
+                }
+                int col = select(node, base);
+                node = base + col;
+                visits.incrementAndGet(node);
+                path[depth++] = node;
+                board.dropPiece(col, board.getMoveCount() % 2 == 0 ? 'X' : 'O');
+            }
+            if (winner == 0) {
+                winner = playout(board, random);
+            }
+            // 逆伝播: 各ノードに入る手を指した側から見た結果を足す
+            for (int i = depth - 1; i >= 1; i--) {
+                char mover = (rootMoves + i) % 2 == 1 ? 'X' : 'O';
+                values.addAndGet(path[i], winner == mover ? 2 : winner == ' ' ? 1 : 0);
+            }
+            while (board.getMoveCount() > rootMoves) {
+                board.undo();
+            }
+        }
+    }
+
+    // node の子7個を確保して番号の先頭を返す（他のスレッドが展開中、またはノード切れなら 0 以下）
+    private int expand(int node, GravityConnectFour board) {
+        if (!children.compareAndSet(node, UNEXPANDED, EXPANDING)) {
+            return children.get(node);
+        }
+        int base = nodeCount.getAndAdd(COLS);
+        if (base + COLS > visits.length()) {
+            nodeCount.getAndAdd(-COLS);
+            children.set(node, UNEXPANDED);
+            return 0;
+        }
+        int legal = board.legalMoves();
+        for (int col = 0; col < COLS; col++) {
+            visits.set(base + col, ((legal >>> col) & 1) != 0 ? 0 : ILLEGAL);
+            values.set(base + col, 0L);
+            children.set(base + col, UNEXPANDED);
+        }
+        children.set(node, base); // 子の初期化より後に公開する
+        return base;
+    }
+
+    // UCT 値が最大の子の列。まだ訪れていない子があれば中央に近いものから先に選ぶ
+    private int select(int node, int base) {
+        double logParent = Math.log(Math.max(1, visits.get(node)));
+        int best = -1;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < COLS; i++) {
+            int col = COLS / 2 + ((i % 2 == 0) ? i / 2 : -(i / 2 + 1));
+            int n = visits.get(base + col);
+            if (n == ILLEGAL) {
+                continue;
+            }
+            if (n == 0) {
+                return col;
+            }
+            double score = values.get(base + col) / (2.0 * n) + EXPLORATION * Math.sqrt(logParent / n);
+            if (score > bestScore) {
+                bestScore = score;
+                best = col;
+            }
+        }
+        return best;
+    }
+
+    // ランダムに最後まで指して勝者（引き分けなら ' '）を返す
+    private static char playout(GravityConnectFour board, SplittableRandom random) {
+        while (!board.isFull()) {
+            int legal = board.legalMoves();
+            for (int skip = random.nextInt(Integer.bitCount(legal)); skip > 0; skip--) {
+                legal &= legal - 1;
+            }
+            board.dropPiece(Integer.numberOfTrailingZeros(legal), board.getMoveCount() % 2 == 0 ? 'X' : 'O');
+            if (board.lastMoveWon()) {
+                return moverOf(board);
+            }
+        }
+        return ' ';
+    }
+
+    private static char moverOf(GravityConnectFour board) {
+        return board.getMoveCount() % 2 == 1 ? 'X' : 'O';
+    }
+}
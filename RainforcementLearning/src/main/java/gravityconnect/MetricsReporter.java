@@ -0,0 +1,97 @@
+package gravityconnect;
+
+import java.util.concurrent.TimeUnit;
+
+// TrainingMetrics を一定間隔で読み、直前の区間の値を1行で表示して JFR イベントとしても出す
+public class MetricsReporter {
+    private final TrainingMetrics metrics;
+    private final long intervalMillis;
+    private volatile boolean running;
+    private Thread thread;
+    // 直前の区間の終わりの値
+    private long lastNanos;
+    private long lastEpisodes;
+    private long lastMoves;
+    private long lastXWins;
+    private long lastOWins;
+    private long[] lastUpdateLatency; // 更新時間のヒストグラムの写し（分位点も区間ごとに出す）
+
+    public MetricsReporter(TrainingMetrics metrics, long intervalMillis) {
+        this.metrics = metrics;
+        this.intervalMillis = intervalMillis;
+    }
+
+    public void start() {
+        running = true;
+        lastNanos = System.nanoTime();
+        lastUpdateLatency = metrics.getUpdateLatency().snapshot();
+        thread = new Thread(() -> {
+            while (running) {
+                try {
+                    TimeUnit.MILLISECONDS.sleep(intervalMillis);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                report();
+            }
+        }, "metrics-reporter");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public void stop() throws InterruptedException {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+            thread.join();
+            thread = null;
+        }
+    }
+
+    // 直前の区間の指標を表示する
+    public void report() {
+        long now = System.nanoTime();
+        long episodes = metrics.getEpisodes();
+        long moves = metrics.getMoves();
+        long xWins = metrics.getXWins();
+        long oWins = metrics.getOWins();
+        double seconds = (now - lastNanos) / 1e9;
+        long intervalEpisodes = Math.max(1, episodes - lastEpisodes);
+        Runtime runtime = Runtime.getRuntime();
+
+        TrainingSnapshotEvent event = new TrainingSnapshotEvent();
+        event.episodes = episodes;
+        event.episodesPerSecond = (episodes - lastEpisodes) / seconds;
+        event.movesPerSecond = (moves - lastMoves) / seconds;
+        event.xWinRate = (double) (xWins - lastXWins) / intervalEpisodes;
+        event.oWinRate = (double) (oWins - lastOWins) / intervalEpisodes;
+        event.drawRate = episodes == lastEpisodes ? 0.0 : 1.0 - event.xWinRate - event.oWinRate;
+        event.states = metrics.getQTableSize();
+        event.heapUsed = runtime.totalMemory() - runtime.freeMemory();
+        event.explorationRate = metrics.getExplorationRate();
+        long[] updateLatency = metrics.getUpdateLatency().snapshot();
+        long[] intervalLatency = updateLatency.clone();
+        if (lastUpdateLatency != null) {
+            for (int i = 0; i < intervalLatency.length; i++) {
+                intervalLatency[i] -= lastUpdateLatency[i];
+            }
+        }
+        event.updateP50 = LatencyHistogram.percentile(intervalLatency, 50);
+        event.updateP99 = LatencyHistogram.percentile(intervalLatency, 99);
+        event.commit();
+
+        System.out.printf("[metrics] %d episodes, %.0f ep/s, %.0f moves/s, X %.1f%% O %.1f%% draw %.1f%%,"
+                + " %d states (%.0f heap bytes/state), epsilon %.3f, update p50 %d ns p99 %d ns%n",
+                episodes, event.episodesPerSecond, event.movesPerSecond,
+                100 * event.xWinRate, 100 * event.oWinRate, 100 * event.drawRate,
+                event.states, event.states > 0 ? (double) event.heapUsed / event.states : 0.0,
+                event.explorationRate, event.updateP50, event.updateP99);
+
+        lastNanos = now;
+        lastEpisodes = episodes;
+        lastMoves = moves;
+        lastXWins = xWins;
+        lastOWins = oWins;
+        lastUpdateLatency = updateLatency;
+    }
+}
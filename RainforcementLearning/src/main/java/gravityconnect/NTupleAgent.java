@@ -0,0 +1,220 @@
+package gravityconnect;
+
+import java.util.Random;
+
+// n-tuple ネットワークで Q 値を近似する学習エージェント（QLearningAgent の代わりに使える）
+// 盤面上の4マスの並び（縦・横・斜めの69本）をそれぞれ 3^4 = 81 通りの模様に分け、
+// Q(s, a) = 並びごとの重み W[並び][模様][a] の和 とする。重みは固定長の float 配列だけなので、
+// 訪れた局面の数に関係なく約180KBで済み、初めて見る局面でも似た並びの経験から値を出せる
+// 模様の番号は盤面の差分（置いた・取り除いた駒）だけから更新する
+// 経験再生の学習スレッド（--learner-thread）から updateQTable を呼んでもよい。行動側と学習側は別々の Features と
+// 作業領域を使い、重みの更新は synchronized で1つずつ行う。行動側は重みをロックせずに読む（float の読み書きは分割されないので、
+// 更新中の並びは古い値か新しい値のどちらかになるだけ）
+public class NTupleAgent implements LearningAgent {
+    private static final int[][] TUPLES = GravityConnectFour.lines(4);
+    private static final int PATTERNS = 81;
+    private static final int STRIDE = 8; // 1つの模様の重みは列ごとの7個（+詰め物1個）を連続して並べる
+    private static final int CELLS = GravityConnectFour.COLS * GravityConnectFour.COLUMN_BITS;
+    // マスごとの、そのマスを含む並びと並びの中での重み（3^位置）
+    private static final int[][] CELL_TUPLES = new int[CELLS][];
+    private static final int[][] CELL_POWERS = new int[CELLS][];
+    private static final long TOP_MASK = GravityConnectFour.BOTTOM_MASK << (GravityConnectFour.ROWS - 1);
+
+    static {
+        int[] counts = new int[CELLS];
+        for (int[] tuple : TUPLES) {
+            for (int cell : tuple) {
+                counts[cell]++;
+            }
+        }
+        for (int cell = 0; cell < CELLS; cell++) {
+            CELL_TUPLES[cell] = new int[counts[cell]];
+            CELL_POWERS[cell] = new int[counts[cell]];
+            counts[cell] = 0;
+        }
+        for (int t = 0; t < TUPLES.length; t++) {
+            int power = 1;
+            for (int cell : TUPLES[t]) {
+                CELL_TUPLES[cell][counts[cell]] = t;
+                CELL_POWERS[cell][counts[cell]] = power;
+                counts[cell]++;
+                power *= 3;
+            }
+        }
+    }
+
+    private final float[] weights = new float[TUPLES.length * PATTERNS * STRIDE];
+    // 行動側（chooseAction, evaluate）の局面と作業領域
+    private final Features actState = new Features();
+    private final double[] actValues = new double[STRIDE];
+    // 学習側（updateQTable）の局面と作業領域。Features は直前の局面との差分で更新するので、スレッドをまたいで共有しない
+    private final Features state = new Features();
+    private final Features next = new Features();
+    private final double[] qValues = new double[STRIDE];
+    private double learningRate = 0.01; // 重み1つあたりの学習率（Q 値は69個の重みの和なので全体では約0.7倍）
+    private double discountFactor = 0.9;
+    private double explorationRate = 1.0;
+    private double explorationDecay = 0.995;
+    private double minExplorationRate = 0.1;
+    private final Random random;
+
+    public NTupleAgent() {
+        this(new Random());
+    }
+
+    public NTupleAgent(Random random) {
+        this.random = random;
+    }
+
+    @Override
+    public int chooseAction(GravityConnectFour game) {
+        int legal = game.legalMoves();
+        if (legal == 0) {
+            return 0; // 盤面が埋まっている
+        }
+        if (random.nextDouble() < explorationRate) {
+            for (int skip = random.nextInt(Integer.bitCount(legal)); skip > 0; skip--) {
+                legal &= legal - 1;
+            }
+            return Integer.numberOfTrailingZeros(legal);
+        }
+        actState.moveTo(game.getMask('X'), game.getMask('O'));
+        evaluate(actState, actValues);
+        return QLearningAgent.argmax(actValues, legal);
+    }
+
+    @Override
+    public void updateQTable(long boardKey, int action, double reward, long nextBoardKey) {
+        updateQTable(boardKey, action, reward, nextBoardKey, false);
+    }
+
+    @Override
+    public synchronized void updateQTable(long boardKey, int action, double reward, long nextBoardKey,
+            boolean terminal) {
+        double target = reward;
+        if (!terminal) {
+            next.moveTo(nextBoardKey);
+            int legal = legalMoves(next.occupied());
+            if (legal != 0) {
+                evaluate(next, qValues);
+                target += discountFactor * qValues[QLearningAgent.argmax(qValues, legal)];
+            }
+        }
+        state.moveTo(boardKey);
+        int[] patterns = state.patterns;
+        double q = 0.0;
+        for (int t = 0; t < patterns.length; t++) {
+            q += weights[(t * PATTERNS + patterns[t]) * STRIDE + action];
+        }
+        float step = (float) (learningRate * (target - q));
+        for (int t = 0; t < patterns.length; t++) {
+            weights[(t * PATTERNS + patterns[t]) * STRIDE + action] += step;
+        }
+    }
+
+    // 局面の全列の Q 値を out に書く（行動側のスレッドから呼ぶ）
+    public void evaluate(GravityConnectFour game, double[] out) {
+        actState.moveTo(game.getMask('X'), game.getMask('O'));
+        evaluate(actState, out);
+    }
+
+    private void evaluate(Features features, double[] out) {
+        float q0 = 0f, q1 = 0f, q2 = 0f, q3 = 0f, q4 = 0f, q5 = 0f, q6 = 0f;
+        int[] patterns = features.patterns;
+        for (int t = 0; t < patterns.length; t++) {
+            int base = (t * PATTERNS + patterns[t]) * STRIDE;
+            q0 += weights[base];
+            q1 += weights[base + 1];
+            q2 += weights[base + 2];
+            q3 += weights[base + 3];
+            q4 += weights[base + 4];
+            q5 += weights[base + 5];
+            q6 += weights[base + 6];
+        }
+        out[0] = q0;
+        out[1] = q1;
+        out[2] = q2;
+        out[3] = q3;
+        out[4] = q4;
+        out[5] = q5;
+        out[6] = q6;
+    }
+
+    private static int legalMoves(long occupied) {
+        long open = ~occupied & TOP_MASK;
+        int legal = 0;
+        for (int col = 0; col < GravityConnectFour.COLS; col++) {
+            legal |= (int) (open >>> (col * GravityConnectFour.COLUMN_BITS + GravityConnectFour.ROWS - 1) & 1) << col;
+        }
+        return legal;
+    }
+
+    @Override
+    public double getReward(GravityConnectFour game, char currentPlayer, boolean gameOver, int action) {
+        return QLearningAgent.reward(game, currentPlayer, gameOver, action);
+    }
+
+    @Override
+    public double getExplorationRate() {
+        return explorationRate;
+    }
+
+    @Override
+    public void setExplorationRate(double explorationRate) {
+        this.explorationRate = explorationRate;
+    }
+
+    public void setLearningRate(double learningRate) {
+        this.learningRate = learningRate;
+    }
+
+    @Override
+    public void updateExplorationRate() {
+        if (explorationRate > minExplorationRate) {
+            explorationRate *= explorationDecay;
+        }
+    }
+
+    // 重みの数（メモリは weightCount() * 4 バイト）
+    public int weightCount() {
+        return weights.length;
+    }
+
+    // 局面ごとの各並びの模様番号（マスの値 0: 空, 1: 'X', 2: 'O' を3進数で並べたもの）
+    // 直前の局面からの差分のマスだけを更新するので、1手進んだ局面なら十数本の並びしか触らない
+    private static final class Features {
+        private final int[] patterns = new int[TUPLES.length];
+        private long xMask;
+        private long oMask;
+
+        long occupied() {
+            return xMask | oMask;
+        }
+
+        void moveTo(long key) {
+            long occupied = GravityConnectFour.occupied(key);
+            long x = key - occupied - GravityConnectFour.BOTTOM_MASK;
+            moveTo(x, occupied & ~x);
+        }
+
+        void moveTo(long x, long o) {
+            long changed = (x ^ xMask) | (o ^ oMask);
+            while (changed != 0) {
+                int cell = Long.numberOfTrailingZeros(changed);
+                changed &= changed - 1;
+                int delta = code(x, o, cell) - code(xMask, oMask, cell);
+                int[] tuples = CELL_TUPLES[cell];
+                int[] powers = CELL_POWERS[cell];
+                for (int i = 0; i < tuples.length; i++) {
+                    patterns[tuples[i]] += delta * powers[i];
+                }
+            }
+            xMask = x;
+            oMask = o;
+        }
+
+        private static int code(long x, long o, int cell) {
+            return (int) ((x >>> cell) & 1) + 2 * (int) ((o >>> cell) & 1);
+        }
+    }
+}
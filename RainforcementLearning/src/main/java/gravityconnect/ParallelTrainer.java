@@ -0,0 +1,72 @@
+package gravityconnect;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// 複数スレッドで同時に自己対戦を行い、共有のQ値テーブルを更新する
+// ワーカーごとに盤面・エージェント・乱数を持ち、共有するのはテーブル（StripedQTable など）だけ
+public class ParallelTrainer {
+    private final QTable tableX;
+    private final QTable tableO;
+    private final int threads;
+    private final long seed;
+    private GameRecordWriter recorder;
+    private TrainingMetrics metrics;
+
+    // tableX, tableO はスレッドセーフであること
+    public ParallelTrainer(QTable tableX, QTable tableO, int threads, long seed) {
+        this.tableX = tableX;
+        this.tableO = tableO;
+        this.threads = threads;
+        this.seed = seed;
+    }
+
+    // 全スレッドの対局を1つのファイルに記録する（null なら記録しない）
+    public void setRecorder(GameRecordWriter recorder) {
+        this.recorder = recorder;
+    }
+
+    // 全スレッドの対局を1つの指標にまとめる（null なら記録しない）
+    public void setMetrics(TrainingMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    // episodes 回の自己対戦を threads 本のスレッドで分担する
+    public void train(int episodes) throws InterruptedException {
+        AtomicInteger nextEpisode = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                Random random = new Random(seed + i);
+                QLearningAgent agentO = new QLearningAgent(tableO, new Random(random.nextLong()));
+                SelfPlay selfPlay = new SelfPlay(new QLearningAgent(tableX, new Random(random.nextLong())), agentO);
+                selfPlay.setRecorder(recorder);
+                selfPlay.setMetrics(metrics);
+                if (metrics != null && i == 0) {
+                    metrics.watch(tableO, agentO); // 探索率はどのスレッドでも同じように減るので1つだけ見る
+                }
+                workers.add(executor.submit(() -> {
+                    while (nextEpisode.getAndIncrement() < episodes) {
+                        selfPlay.playEpisode();
+                    }
+                }));
+            }
+            for (Future<?> worker : workers) {
+                try {
+                    worker.get();
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("training worker failed", e.getCause());
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package gravityconnect;
+
+// 盤面を見て駒を置く列を選ぶもの（学習エージェント、探索プレイヤーなど）
+public interface Player {
+    // game は変更しないこと（調べるために置いた駒は戻す）
+    int chooseAction(GravityConnectFour game);
+}
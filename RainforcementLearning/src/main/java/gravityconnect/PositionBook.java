@@ -0,0 +1,84 @@
+package gravityconnect;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// 序盤の定跡と終盤の読み切り結果をまとめた局面データベース（PositionBookGenerator で作る）
+// ファイルは 16 バイトのヘッダ（MAGIC と件数）の後に、キーの昇順に並んだ 10 バイトのエントリ
+//   8 バイト: 左右反転で正規化した局面のキー（GravityConnectFour.getKey() と mirror の小さい方）
+//   1 バイト: 最善の列（正規化した向きでの列）
+//   1 バイト: 手番側から見た結果（1: 勝ち, 0: 引き分け, -1: 負け, UNSOLVED: 読み切れていない）
+// が並ぶ。読み取り専用でメモリマップして二分探索するだけなので、複数のスレッドからロックなしで引いてよい
+public class PositionBook {
+    public static final int UNSOLVED = SearchPlayer.UNSOLVED;
+    static final long MAGIC = 0x4743344230304b31L; // "GC4B00K1"
+    static final int HEADER_BYTES = 16;
+    static final int ENTRY_BYTES = 10;
+
+    private final ByteBuffer entries;
+    private final int count;
+
+    private PositionBook(ByteBuffer entries, int count) {
+        this.entries = entries;
+        this.count = count;
+    }
+
+    public static PositionBook open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("position book too large: " + path);
+            }
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (size < HEADER_BYTES || map.getLong(0) != MAGIC
+                    || size != HEADER_BYTES + map.getLong(8) * ENTRY_BYTES) {
+                throw new IOException("not a position book: " + path);
+            }
+            // マップはチャネルを閉じても有効
+            return new PositionBook(map.slice(HEADER_BYTES, (int) size - HEADER_BYTES), (int) map.getLong(8));
+        }
+    }
+
+    // key（GravityConnectFour.getKey() の値）の最善の列。載っていなければ -1
+    public int bestMove(long key) {
+        long mirrored = GravityConnectFour.mirror(key);
+        int index = find(Math.min(key, mirrored));
+        if (index < 0) {
+            return -1;
+        }
+        int col = entries.get(index * ENTRY_BYTES + 8);
+        return mirrored < key ? GravityConnectFour.COLS - 1 - col : col;
+    }
+
+    // key の手番側から見た結果。載っていなければ UNSOLVED
+    public int result(long key) {
+        int index = find(Math.min(key, GravityConnectFour.mirror(key)));
+        return index < 0 ? UNSOLVED : entries.get(index * ENTRY_BYTES + 9);
+    }
+
+    public int size() {
+        return count;
+    }
+
+    // 絶対位置の読み出しだけを使うのでバッファの位置は共有しても変わらない
+    private int find(long key) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long k = entries.getLong(mid * ENTRY_BYTES);
+            if (k < key) {
+                low = mid + 1;
+            } else if (k > key) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+}
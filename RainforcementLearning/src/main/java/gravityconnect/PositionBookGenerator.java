@@ -0,0 +1,160 @@
+package gravityconnect;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+// PositionBook のファイルを作る
+// 序盤は plies 手目までの全局面を、終盤はランダム対局（または記録した対局）で現れた空きマス endgame-empty 以下の局面を
+// SearchPlayer で調べ、最善の列と結果を書く。終盤は最後まで読み切れるので結果が確定する
+public class PositionBookGenerator {
+    private static int incomplete; // 探索が終わらずに載せなかった局面の数
+    // 使い方: java gravityconnect.PositionBookGenerator <出力ファイル> [--plies=<n>] [--opening-millis=<ms>]
+    //                [--endgames=<n>] [--endgame-empty=<n>] [--games=<記録ファイル>]
+    //   --plies           序盤として全局面を調べる手数（既定は4）
+    //   --opening-millis  序盤の1局面あたりの探索時間（既定は200）
+    //   --endgames        終盤の局面を集める対局数（既定は20000）
+    //   --endgame-empty   終盤として扱う空きマスの数の上限（既定は12）
+    //   --games           終盤の局面をランダム対局の代わりに GameRecordWriter の記録から集める
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0 || args[0].startsWith("--")) {
+            System.out.println("usage: PositionBookGenerator <output> [--plies=<n>] [--opening-millis=<ms>]"
+                    + " [--endgames=<n>] [--endgame-empty=<n>] [--games=<game log>]");
+            return;
+        }
+        int plies = Integer.parseInt(Main.option(args, "plies", "4"));
+        long openingMillis = Long.parseLong(Main.option(args, "opening-millis", "200"));
+        int endgames = Integer.parseInt(Main.option(args, "endgames", "20000"));
+        int endgameEmpty = Integer.parseInt(Main.option(args, "endgame-empty", "12"));
+        String gameLog = Main.option(args, "games", null);
+
+        Map<Long, Integer> book = new HashMap<>(); // 正規化したキー -> 列 | 結果 << 8
+        long start = System.nanoTime();
+        SearchPlayer opening = new SearchPlayer(openingMillis);
+        addOpenings(new GravityConnectFour(), plies, opening, book);
+        int openings = book.size();
+        System.out.printf("%d opening positions (%.1f s)%n", openings, (System.nanoTime() - start) / 1e9);
+
+        SearchPlayer endgame = new SearchPlayer(60_000);
+        GravityConnectFour game = new GravityConnectFour();
+        if (gameLog != null) {
+            GameLog.scan(Paths.get(gameLog), (index, winner, moves, length) -> {
+                game.reset();
+                for (int i = 0; i < length - 1; i++) {
+                    game.dropPiece(moves[i], i % 2 == 0 ? 'X' : 'O');
+                    addEndgame(game, endgameEmpty, endgame, book);
+                }
+            });
+        } else {
+            Random random = new Random(42L);
+            for (int i = 0; i < endgames; i++) {
+                game.reset();
+                while (true) {
+                    int legal = game.legalMoves();
+                    for (int skip = random.nextInt(Integer.bitCount(legal)); skip > 0; skip--) {
+                        legal &= legal - 1;
+                    }
+                    game.dropPiece(Integer.numberOfTrailingZeros(legal), game.getMoveCount() % 2 == 0 ? 'X' : 'O');
+                    if (game.lastMoveWon() || game.isFull()) {
+                        break;
+                    }
+                    addEndgame(game, endgameEmpty, endgame, book);
+                }
+            }
+        }
+        System.out.printf("%d endgame positions (%.1f s)%n", book.size() - openings, (System.nanoTime() - start) / 1e9);
+
+        write(Paths.get(args[0]), book);
+        System.out.println("wrote " + book.size() + " positions to " + args[0]);
+        if (incomplete > 0) {
+            System.out.println(incomplete + " positions skipped because the search ran out of time");
+        }
+    }
+
+    // plies 手目までの決着していない局面をすべて調べる
+    private static void addOpenings(GravityConnectFour game, int plies, SearchPlayer search, Map<Long, Integer> book) {
+        if (!add(game, search, book)) {
+            return; // 左右反転も含めて調べ済み（その先も調べ済み）
+        }
+        if (game.getMoveCount() >= plies) {
+            return;
+        }
+        char side = game.getMoveCount() % 2 == 0 ? 'X' : 'O';
+        for (int col = 0; col < GravityConnectFour.COLS; col++) {
+            if (!game.canPlay(col) || game.isWinningMove(col, side)) {
+                continue;
+            }
+            game.dropPiece(col, side);
+            addOpenings(game, plies, search, book);
+            game.undo();
+        }
+    }
+
+    private static void addEndgame(GravityConnectFour game, int endgameEmpty, SearchPlayer search,
+            Map<Long, Integer> book) {
+        if (GravityConnectFour.ROWS * GravityConnectFour.COLS - game.getMoveCount() <= endgameEmpty) {
+            add(game, search, book);
+        }
+    }
+
+    // 未登録なら調べて true を返す。探索が深さ1も終わらずに時間切れになった局面は、手も結果も当てにならないので載せない
+    private static boolean add(GravityConnectFour game, SearchPlayer search, Map<Long, Integer> book) {
+        long key = game.getKey();
+        long mirrored = GravityConnectFour.mirror(key);
+        long canonical = Math.min(key, mirrored);
+        if (book.containsKey(canonical)) {
+            return false;
+        }
+        int col = search.chooseAction(game);
+        int result = search.getSolvedResult();
+        if (search.getCompletedDepth() == 0 && result == SearchPlayer.UNSOLVED) {
+            incomplete++;
+            return true;
+        }
+        if (mirrored < key) {
+            col = GravityConnectFour.COLS - 1 - col;
+        }
+        book.put(canonical, col | (result << 8));
+        return true;
+    }
+
+    private static void write(Path path, Map<Long, Integer> book) throws IOException {
+        long[] keys = new long[book.size()];
+        int n = 0;
+        for (long key : book.keySet()) {
+            keys[n++] = key;
+        }
+        Arrays.sort(keys);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+            buffer.putLong(PositionBook.MAGIC);
+            buffer.putLong(keys.length);
+            for (long key : keys) {
+                if (buffer.remaining() < PositionBook.ENTRY_BYTES) {
+                    flush(channel, buffer);
+                }
+                int value = book.get(key);
+                buffer.putLong(key);
+                buffer.put((byte) (value & 0xFF));
+                buffer.put((byte) (value >> 8));
+            }
+            flush(channel, buffer);
+        }
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,244 @@
+package gravityconnect;
+
+import java.util.Random;
+
+public class QLearningAgent implements LearningAgent {
+    private QTable qTable;
+    private final double[] qValues = new double[QTable.ACTIONS]; // chooseAction 用の作業領域
+    private final GravityConnectFour scratch = new GravityConnectFour(); // char[][] 版のメソッド用の作業盤面
+    private double learningRate = 0.1;
+    private double discountFactor = 0.9;
+    private double explorationRate = 1.0; // 初期のε-greedy探索率
+    private double explorationDecay = 0.995; // 探索率の減少率
+    private double minExplorationRate = 0.1; // 最小探索率
+    private boolean useSymmetry = true; // 左右反転した盤面を同じ状態として扱う
+    private PositionBook book; // 設定されていれば、探索しない手番ではQ値テーブルより先に引く
+    private Random random;
+
+    public QLearningAgent() {
+        this(new HeapQTable());
+    }
+
+    public QLearningAgent(QTable qTable) {
+        this(qTable, new Random());
+    }
+
+    public QLearningAgent(QTable qTable, Random random) {
+        this.qTable = qTable;
+        this.random = random;
+    }
+
+    public long getStateKey(char[][] board) {
+        return canonicalKey(GravityConnectFour.key(board));
+    }
+
+    // 盤面とその左右反転のうちキーが小さい方を状態として使う
+    // 反転側が選ばれた場合、行動（列）も col -> COLS - 1 - col と読み替える
+    private long canonicalKey(long key) {
+        return useSymmetry ? Math.min(key, GravityConnectFour.mirror(key)) : key;
+    }
+
+    private static int mirrorAction(int action) {
+        return GravityConnectFour.COLS - 1 - action;
+    }
+
+    // 列のビットマスクを左右反転する
+    private static int mirrorMask(int mask) {
+        return Integer.reverse(mask) >>> (Integer.SIZE - GravityConnectFour.COLS);
+    }
+
+    // 学習率・割引率・探索率の減少率と下限（HyperparameterSweep で振る）
+    public void setLearningRate(double learningRate) {
+        this.learningRate = learningRate;
+    }
+
+    public void setDiscountFactor(double discountFactor) {
+        this.discountFactor = discountFactor;
+    }
+
+    public void setExplorationDecay(double explorationDecay) {
+        this.explorationDecay = explorationDecay;
+    }
+
+    public void setMinExplorationRate(double minExplorationRate) {
+        this.minExplorationRate = minExplorationRate;
+    }
+
+    public void setUseSymmetry(boolean useSymmetry) {
+        this.useSymmetry = useSymmetry;
+    }
+
+    public void setBook(PositionBook book) {
+        this.book = book;
+    }
+
+    public QTable getQTable() {
+        return qTable;
+    }
+
+    public int chooseAction(char[][] board) {
+        scratch.setBoard(board);
+        return chooseAction(scratch);
+    }
+
+    // 盤面をコピーせずにゲームエンジン上で行動を選ぶ
+    @Override
+    public int chooseAction(GravityConnectFour game) {
+        long boardKey = game.getKey();
+        long stateKey = canonicalKey(boardKey);
+
+        // まず、自分の駒が3つ揃っていて4つ目を置ける場所を探す
+        for (int col = 0; col < GravityConnectFour.COLS; col++) {
+            if (game.isWinningMove(col, 'X')) {
+                return col; // 勝てる手があるならその列を選ぶ
+            }
+        }
+
+        // 通常のε-greedyロジック（置ける列の中からだけ選ぶので、選び直しは起きない）
+        int legal = game.legalMoves();
+        if (legal == 0) {
+            return 0; // 盤面が埋まっている
+        }
+        if (book != null) {
+            int col = book.bestMove(boardKey);
+            if (col >= 0 && ((legal >>> col) & 1) != 0 && random.nextDouble() >= explorationRate) {
+                return col;
+            }
+        }
+        if (!qTable.getRow(stateKey, qValues) || random.nextDouble() < explorationRate) {
+            return randomColumn(legal); // ランダムに列を選ぶ
+        }
+
+        boolean mirrored = stateKey != boardKey;
+        int bestAction = argmax(qValues, mirrored ? mirrorMask(legal) : legal);
+        return mirrored ? mirrorAction(bestAction) : bestAction;
+    }
+
+    // legal の立っているビットから一様に1つ選ぶ
+    private int randomColumn(int legal) {
+        for (int skip = random.nextInt(Integer.bitCount(legal)); skip > 0; skip--) {
+            legal &= legal - 1; // 最下位のビットを消す
+        }
+        return Integer.numberOfTrailingZeros(legal);
+    }
+
+    // legal の列の中でQ値が最大の列（同じ値なら小さい列）。分岐を比較と選択だけにして JIT が条件移動にできる形にしている
+    static int argmax(double[] values, int legal) {
+        int bestAction = 0;
+        double bestValue = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < QTable.ACTIONS; i++) {
+            double value = ((legal >>> i) & 1) != 0 ? values[i] : Double.NEGATIVE_INFINITY;
+            boolean better = value > bestValue;
+            bestValue = better ? value : bestValue;
+            bestAction = better ? i : bestAction;
+        }
+        return bestAction;
+    }
+
+    public void updateQTable(char[][] board, int action, double reward, char[][] nextBoard) {
+        updateQTable(GravityConnectFour.key(board), action, reward, GravityConnectFour.key(nextBoard));
+    }
+
+    // boardKey, nextBoardKey は GravityConnectFour.getKey() の値（左右反転の正規化はここで行う）
+    @Override
+    public void updateQTable(long boardKey, int action, double reward, long nextBoardKey) {
+        updateQTable(boardKey, action, reward, nextBoardKey, false);
+    }
+
+    // terminal なら次状態の価値を見ずに報酬だけを目標にする（勝敗が決まった手や盤面が埋まった手の遷移）
+    @Override
+    public void updateQTable(long boardKey, int action, double reward, long nextBoardKey, boolean terminal) {
+        long stateKey = canonicalKey(boardKey);
+        long nextStateKey = canonicalKey(nextBoardKey);
+        if (stateKey != boardKey) {
+            action = mirrorAction(action);
+        }
+
+        // 次状態は読むだけで行を作らない（未登録なら全列 0 として扱う）。現在の状態の行は update が作る
+        double maxNextQValue = terminal ? 0.0 : qTable.maxValue(nextStateKey);
+
+        // Q値を更新
+        qTable.update(stateKey, action, reward + discountFactor * maxNextQValue, learningRate);
+    }
+
+    public double getReward(char[][] board, char currentPlayer, boolean gameOver, int action) {
+        scratch.setBoard(board);
+        return getReward(scratch, currentPlayer, gameOver, action);
+    }
+
+    @Override
+    public double getReward(GravityConnectFour game, char currentPlayer, boolean gameOver, int action) {
+        return reward(game, currentPlayer, gameOver, action);
+    }
+
+    // 報酬の決め方（NTupleAgent とも共有する）
+    // 駒を置いて調べたあと undo で元に戻すので、盤面のコピーを作らない
+    static double reward(GravityConnectFour game, char currentPlayer, boolean gameOver, int action) {
+        if (gameOver && game.checkWin(currentPlayer)) {
+            return 1.0; // 勝利の報酬
+        } else if (gameOver && !game.checkWin(currentPlayer)) {
+            return -1.0; // 敗北のペナルティ
+        } else if (game.isFull()) {
+            return 0.5; // 引き分け
+        } else {
+            // 戦略的な行動に対して報酬を設定し、無価値な行動には小さな負の報酬を与える
+            double futureReward = 0.0;
+            boolean dropped = game.dropPiece(action, currentPlayer);
+
+            if (game.checkWin(currentPlayer)) {
+                futureReward += 0.9; // 勝利に近づく行動への報酬
+            } else if (isMeaninglessMove(game, action)) {
+                futureReward -= 0.1; // 無価値な行動には負の報酬
+            }
+
+            if (dropped) {
+                game.undo();
+            }
+            return futureReward;
+        }
+    }
+
+    // 無価値な行動かどうかを判定するメソッド（例: ランダムに置いた場合や無意味な動き）
+    private static boolean isMeaninglessMove(GravityConnectFour game, int col) {
+        // 無価値な行動を判定するロジックを追加
+        // 例えば、駒を置いても戦略的な変化がない場合など
+        return !hasPotentialForWinOrBlock(game, col);
+    }
+
+    // 戦略的な手かどうかを判定する簡単なロジック（例: 勝利やブロックに寄与するか）
+    private static boolean hasPotentialForWinOrBlock(GravityConnectFour game, int col) {
+        // 自分または相手が3つ揃っているかどうかを確認し、4つ目の駒を置くことで勝利または阻止になるかを判定
+        if (game.isWinningMove(col, 'X')) {
+            return true; // 勝利に寄与する手
+        }
+        // 'X' を置いた上に 'O' を置いた場合を調べる
+        if (!game.dropPiece(col, 'X')) {
+            return game.isWinningMove(col, 'O');
+        }
+        boolean blocks = game.isWinningMove(col, 'O');
+        game.undo();
+        return blocks; // 相手の勝利を阻止する手
+    }
+
+    private char getOpponent(char currentPlayer) {
+        return (currentPlayer == 'X') ? 'O' : 'X';
+    }
+
+    @Override
+    public double getExplorationRate() {
+        return explorationRate;
+    }
+
+    @Override
+    public void setExplorationRate(double explorationRate) {
+        this.explorationRate = explorationRate;
+    }
+
+    @Override
+    public void updateExplorationRate() {
+        if (explorationRate > minExplorationRate) {
+            explorationRate *= explorationDecay;
+        }
+    }
+
+}
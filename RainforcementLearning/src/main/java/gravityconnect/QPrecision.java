@@ -0,0 +1,16 @@
+package gravityconnect;
+
+// ヒープ上のQ値テーブルで Q 値を何ビットで持つか
+public enum QPrecision {
+    DOUBLE, // HeapQTable（64ビット）
+    FLOAT, // CompactQTable（32ビット浮動小数点）
+    FIXED16; // CompactQTable（16ビット固定小数点。[-8, 8) を 1/4096 刻みで表す）
+
+    public QTable newTable(int expectedSize) {
+        return this == DOUBLE ? new HeapQTable(expectedSize) : new CompactQTable(this, expectedSize);
+    }
+
+    public QTable newTable() {
+        return newTable(1 << 12);
+    }
+}
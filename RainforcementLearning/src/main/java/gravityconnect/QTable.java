@@ -0,0 +1,44 @@
+package gravityconnect;
+
+// Q値テーブル。盤面は GravityConnectFour.getKey() の64ビットキーで表し、列ごとのQ値を持つ
+public interface QTable {
+    int ACTIONS = GravityConnectFour.COLS;
+
+    boolean contains(long key);
+
+    // 状態のQ値を out に書き込む。未登録の状態なら false を返し out は変更しない
+    boolean getRow(long key, double[] out);
+
+    // getRow と同じだが、テーブルの中身を一切変えない（BoundedQTable の参照回数も増やさない）
+    // チェックポイントのように学習以外の目的で全状態を読むときに使い、追い出しの順番を乱さないようにする
+    default boolean peekRow(long key, double[] out) {
+        return getRow(key, out);
+    }
+
+    // 未登録の状態は 0 として扱う
+    double get(long key, int action);
+
+    // 状態の最大Q値（未登録の状態は 0。行を追加しない）
+    double maxValue(long key);
+
+    // 未登録の状態ならゼロで初期化した行を追加する
+    void insert(long key);
+
+    // Q(key, action) += learningRate * (target - Q(key, action))。未登録の状態は追加してから更新する
+    void update(long key, int action, double target, double learningRate);
+
+    // 状態の Q 値をまとめて row の値に置き換える（未登録なら追加する）。チェックポイントの読み込みで、1状態を1回の探索で入れるために使う
+    void put(long key, double[] row);
+
+    // states 個の状態が入る大きさまで先に広げておく（読み込みの途中で何度も拡張しないように。大きさが固定のテーブルでは何もしない）
+    default void reserve(long states) {
+    }
+
+    int size();
+
+    // 内部のスロット数と、スロット slot にある状態のキー（空なら 0）
+    // チェックポイントで全状態を少しずつ読み出すために使う。slots() が変わったらスロットの並びも変わっている
+    long slots();
+
+    long keyAt(long slot);
+}
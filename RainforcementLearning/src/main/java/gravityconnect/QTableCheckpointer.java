@@ -0,0 +1,401 @@
+package gravityconnect;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+// 学習中のQ値テーブルを一定エピソードごとにファイルへ書き出す
+// 学習スレッドは onEpisode() のたびにスロットを CHUNK_SLOTS 個だけ読み出してバッファに写し、書き込みとオプションの圧縮は
+// 専用のスレッドが行う。1回に止まるのはバッファへのコピーの間だけ（16K スロットで数百マイクロ秒）で、onEpisode() は書き込みを待たない
+// 書き出しに失敗したチェックポイントはログに残して捨て、次の間隔でやり直す（学習は止めない）
+// 書き出しは複数のエピソードにまたがるので、行ごとには一貫しているが行どうしは少しずつ違う時点の値になる
+// BoundedQTable の追い出し（後ろ詰めの削除）では、まだ読んでいないスロットの状態が読み終えたスロットへ移ることがある
+// 線形探索の状態は本来の位置との間の空きスロットを越えては動かないので、空きスロットから読み始め、チャンクも必ず空きスロットで
+// 区切る。こうすると書き出しを始めたときにあって終わるまで残っている状態は、ちょうど1回ずつ書かれる
+// ファイルは一時ファイルに書いてから置き換えるので、途中で止まっても前回のチェックポイントが残る
+//
+// 形式: 8 バイトの MAGIC、1 バイトの圧縮フラグ、書き始めたときの状態数 8 バイト（読み込み前にテーブルを広げる目安）、
+// 以降（圧縮するならこの部分を gzip で）
+//   エントリ（キー 8 バイト + Q値 7 個の double）の並び、キー 0 の終端、エントリ数 8 バイト
+public class QTableCheckpointer implements AutoCloseable {
+    static final long MAGIC = 0x474334434b505432L; // "GC4CKPT2"
+    private static final long MAGIC_V1 = 0x474334434b505431L; // "GC4CKPT1"（状態数の目安がない。読み込みだけ受け付ける）
+    private static final int CHUNK_SLOTS = 1 << 14;
+    private static final int ENTRY_BYTES = Long.BYTES + QTable.ACTIONS * Double.BYTES;
+    private static final int IO_BUFFER_BYTES = 1 << 20;
+
+    private final QTable table;
+    private final Path path;
+    private final boolean compress;
+    private final int intervalEpisodes;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "checkpoint-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // 学習スレッドと書き込みスレッドの間でやり取りするチャンク（空のものと書き出し待ちのもの）
+    private final BlockingQueue<Chunk> free = new ArrayBlockingQueue<>(4);
+    private final BlockingQueue<Chunk> filled = new ArrayBlockingQueue<>(4);
+    private final double[] row = new double[QTable.ACTIONS];
+    private long episodes;
+    private long lastStart; // 直前のチェックポイントを始めたエピソード
+    private long nextSlot = -1; // 書き出し中なら次に読む位置（origin から数えたスロット数）、そうでなければ -1
+    private long slots;
+    private long origin; // 読み始めるスロット（始めたときに空いていたスロット）
+    private long expectedEntries; // 書き始めたときの状態数（チャンクの受け渡しで書き込みスレッドに見える）
+    private Future<Long> pending;
+    private long checkpoints;
+    private long failures;
+
+    public QTableCheckpointer(QTable table, Path path, int intervalEpisodes, boolean compress) {
+        this.table = table;
+        this.path = path;
+        this.intervalEpisodes = intervalEpisodes;
+        this.compress = compress;
+        for (int i = 0; i < 4; i++) {
+            free.add(new Chunk());
+        }
+    }
+
+    // 学習スレッドから1エピソードごとに呼ぶ
+    public void onEpisode() {
+        episodes++;
+        if (pending != null && pending.isDone()) {
+            Throwable failure = await(); // 終わっているので待たない
+            if (failure != null) {
+                report(failure);
+            }
+        }
+        if (nextSlot < 0) {
+            // 全部写し終えて書き込みスレッドが残りを書いている間は、終わるまで次を始めない
+            if (pending == null && episodes - lastStart >= intervalEpisodes) {
+                begin(); // 書き出しが間隔より長くかかったときは、書き終えた直後に次を始める
+            }
+            return;
+        }
+        // 書き込みが追いついていなければこのエピソードでは写さない（学習を待たせない）
+        Chunk chunk = free.poll();
+        if (chunk != null) {
+            copyChunk(chunk);
+        }
+    }
+
+    // 現在の状態をすぐに書き出し、書き終えるまで待つ（学習の終わりに呼ぶ。書き出し中のものは先に書き終える）
+    public void checkpointNow() throws IOException {
+        if (pending != null) {
+            Throwable failure = complete();
+            if (failure != null) {
+                report(failure); // 今の状態を書き出せば足りるので、失敗していても続ける
+            }
+        }
+        begin();
+        Throwable failure = complete();
+        if (failure != null) {
+            throw new IOException("checkpoint failed: " + path, failure);
+        }
+    }
+
+    // 残りのスロットを全部写して書き終えるまで待ち、失敗していればその原因を返す
+    private Throwable complete() throws IOException {
+        while (nextSlot >= 0 && !pending.isDone()) {
+            try {
+                Chunk chunk = free.poll(100, TimeUnit.MILLISECONDS);
+                if (chunk != null) {
+                    copyChunk(chunk);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("interrupted while checkpointing", e);
+            }
+        }
+        return await();
+    }
+
+    // 書き終えたチェックポイントの数
+    public long checkpoints() {
+        return checkpoints;
+    }
+
+    // 書き出しに失敗して捨てたチェックポイントの数
+    public long failures() {
+        return failures;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (nextSlot >= 0 && pending != null) {
+            pending.cancel(true); // 書きかけのものは捨てる（前回のチェックポイントが残る）
+            pending = null;
+        }
+        Throwable failure = await();
+        writer.shutdown();
+        if (failure != null) {
+            throw new IOException("checkpoint failed: " + path, failure);
+        }
+    }
+
+    // 前の書き出しが終わってから呼ぶ
+    private void begin() {
+        lastStart = episodes;
+        startPass();
+        pending = writer.submit(this::write);
+    }
+
+    private void startPass() {
+        slots = table.slots();
+        expectedEntries = table.size();
+        origin = 0;
+        while (origin < slots && table.keyAt(origin) != 0L) {
+            origin++;
+        }
+        origin %= slots;
+        nextSlot = 0;
+    }
+
+    // 次の位置から CHUNK_SLOTS 個ほどを写す。最後のチャンク以外は空きスロットで終える（その後ろの空きスロットまでは次に回す。
+    // 範囲に空きスロットがなければ、空きスロットが見つかるまで延ばす）
+    private void copyChunk(Chunk chunk) {
+        if (table.slots() != slots) {
+            // テーブルが拡張されてスロットの並びが変わった。最初から読み直す
+            chunk.restart = true;
+            startPass();
+        }
+        long limit = Math.min(slots, nextSlot + CHUNK_SLOTS);
+        long end = -1; // 直前の空きスロットの次の位置
+        int endCount = 0;
+        int count = 0;
+        long position = nextSlot;
+        while (position < slots && (position < limit || end < 0)) {
+            long key = table.keyAt((origin + position) % slots);
+            position++;
+            if (key == 0L) {
+                end = position;
+                endCount = count;
+            } else if (table.peekRow(key, row)) { // 参照回数を増やすと、読んだだけの状態が追い出されなくなる
+                chunk.ensureCapacity(count + 1);
+                chunk.keys[count] = key;
+                System.arraycopy(row, 0, chunk.values, count * QTable.ACTIONS, QTable.ACTIONS);
+                count++;
+            }
+        }
+        if (position == slots) {
+            end = slots;
+            endCount = count;
+        }
+        chunk.count = endCount;
+        chunk.last = end == slots;
+        nextSlot = chunk.last ? -1 : end;
+        filled.add(chunk);
+    }
+
+    // 書き込みスレッド: 一時ファイルに書いてから置き換え、書いたエントリ数を返す
+    private long write() throws IOException, InterruptedException {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        ByteBuffer buffer = ByteBuffer.allocate(IO_BUFFER_BYTES);
+        Chunk chunk = filled.take();
+        try {
+            while (true) {
+                // 途中でテーブルが拡張されたら、書いた分を捨てて最初から書き直す
+                chunk.restart = false;
+                long entries = 0;
+                boolean complete = false;
+                try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                    buffer.clear();
+                    buffer.putLong(MAGIC).put((byte) (compress ? 1 : 0)).putLong(expectedEntries);
+                    drain(buffer, channel, null);
+                    GzipStream out = compress ? new GzipStream(Channels.newOutputStream(channel)) : null;
+                    try {
+                        while (!chunk.restart) {
+                            for (int i = 0; i < chunk.count; i++) {
+                                if (buffer.remaining() < ENTRY_BYTES) {
+                                    drain(buffer, channel, out);
+                                }
+                                buffer.putLong(chunk.keys[i]);
+                                for (int a = 0; a < QTable.ACTIONS; a++) {
+                                    buffer.putDouble(chunk.values[i * QTable.ACTIONS + a]);
+                                }
+                            }
+                            entries += chunk.count;
+                            complete = chunk.last;
+                            free.add(chunk);
+                            chunk = null;
+                            if (complete) {
+                                break;
+                            }
+                            chunk = filled.take();
+                        }
+                        if (complete) {
+                            buffer.putLong(0L).putLong(entries);
+                            drain(buffer, channel, out);
+                            if (out != null) {
+                                out.finish();
+                                out.flush();
+                            }
+                            channel.force(false);
+                        }
+                    } finally {
+                        if (out != null) {
+                            out.end(); // 書き直しで捨てるときも Deflater のネイティブメモリを解放する
+                        }
+                    }
+                }
+                if (complete) {
+                    Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    return entries;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            if (chunk != null) {
+                free.add(chunk); // 手元のチャンクを戻しておく（学習スレッドがやり直しで使う）
+            }
+            throw e;
+        }
+    }
+
+    private static void drain(ByteBuffer buffer, FileChannel channel, OutputStream out) throws IOException {
+        buffer.flip();
+        if (out != null) {
+            out.write(buffer.array(), 0, buffer.limit());
+        } else {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        buffer.clear();
+    }
+
+    // 書き出しが終わるまで待って受け取る。失敗していればその原因を返し、書き込みスレッドが使い残したチャンクを戻す
+    private Throwable await() {
+        if (pending == null) {
+            return null;
+        }
+        Throwable failure = null;
+        try {
+            pending.get();
+            checkpoints++;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure = e;
+        } catch (CancellationException e) {
+            failure = e;
+        } catch (ExecutionException e) {
+            failure = e.getCause();
+        } finally {
+            pending = null;
+            nextSlot = -1;
+        }
+        if (failure != null) {
+            filled.drainTo(free);
+        }
+        return failure;
+    }
+
+    private void report(Throwable failure) {
+        failures++;
+        System.err.println("チェックポイントの書き出しに失敗しました: " + path + " (" + failure + ")");
+    }
+
+    // チェックポイントを読み込んで table に入れ、読み込んだ状態の数を返す
+    // 先にヘッダの状態数までテーブルを広げ、1状態ずつ put で行ごと入れる（状態ごとの探索は1回）
+    public static long load(Path path, QTable table) throws IOException {
+        try (InputStream file = Files.newInputStream(path)) {
+            DataInputStream header = new DataInputStream(file);
+            long magic = header.readLong();
+            if (magic != MAGIC && magic != MAGIC_V1) {
+                throw new IOException("not a Q-table checkpoint: " + path);
+            }
+            boolean compressed = header.readByte() != 0;
+            if (magic == MAGIC) {
+                table.reserve(table.size() + header.readLong());
+            }
+            InputStream body = compressed ? new GZIPInputStream(file, IO_BUFFER_BYTES) : file;
+            // 1MB ずつまとめて読み、バッファから直接取り出す
+            ByteBuffer buffer = ByteBuffer.allocate(IO_BUFFER_BYTES);
+            buffer.flip();
+            double[] row = new double[QTable.ACTIONS];
+            long entries = 0;
+            while (true) {
+                fill(body, buffer, Long.BYTES, path);
+                long key = buffer.getLong();
+                if (key == 0L) {
+                    break;
+                }
+                fill(body, buffer, ENTRY_BYTES - Long.BYTES, path);
+                for (int a = 0; a < QTable.ACTIONS; a++) {
+                    row[a] = buffer.getDouble();
+                }
+                table.put(key, row);
+                entries++;
+            }
+            fill(body, buffer, Long.BYTES, path);
+            if (buffer.getLong() != entries) {
+                throw new EOFException("truncated Q-table checkpoint: " + path);
+            }
+            return entries;
+        }
+    }
+
+    // 書き直すときは close() せずに捨てる（close() は捨てる分の gzip の末尾まで書く）ので、Deflater を個別に解放できるようにする
+    // buffer に少なくとも bytes バイト残るよう読み足す
+    private static void fill(InputStream in, ByteBuffer buffer, int bytes, Path path) throws IOException {
+        if (buffer.remaining() >= bytes) {
+            return;
+        }
+        buffer.compact();
+        while (buffer.position() < bytes) {
+            int read = in.read(buffer.array(), buffer.position(), buffer.remaining());
+            if (read < 0) {
+                throw new EOFException("truncated Q-table checkpoint: " + path);
+            }
+            buffer.position(buffer.position() + read);
+        }
+        buffer.flip();
+    }
+
+    private static final class GzipStream extends GZIPOutputStream {
+        GzipStream(OutputStream out) throws IOException {
+            super(out, IO_BUFFER_BYTES);
+        }
+
+        void end() {
+            def.end();
+        }
+    }
+
+    private static final class Chunk {
+        long[] keys = new long[CHUNK_SLOTS];
+        double[] values = new double[CHUNK_SLOTS * QTable.ACTIONS];
+        int count;
+        boolean last;
+        boolean restart;
+
+        // 空きスロットのない長い並びを読むときだけ広げる
+        void ensureCapacity(int entries) {
+            if (entries > keys.length) {
+                keys = Arrays.copyOf(keys, keys.length * 2);
+                values = Arrays.copyOf(values, keys.length * QTable.ACTIONS);
+            }
+        }
+    }
+}
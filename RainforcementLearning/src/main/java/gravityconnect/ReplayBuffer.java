@@ -0,0 +1,88 @@
+package gravityconnect;
+
+import java.util.Random;
+
+// 経験再生用のリングバッファ（状態キー, 行動, 報酬, 次状態キー, 終端フラグ）
+// 遷移ごとのオブジェクトは作らず、あらかじめ確保したプリミティブ配列に上書きしていく
+// 終端の遷移は数が少ないので別のリングにも残し、サンプリング時に一定の割合で混ぜる
+public class ReplayBuffer {
+    private final Ring all;
+    private final Ring terminals;
+    private final double terminalFraction;
+    private long added;
+
+    // capacity は2のべき乗に切り上げる。terminalFraction はバッチ中の終端遷移の割合
+    public ReplayBuffer(int capacity, double terminalFraction) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.all = new Ring(size);
+        this.terminals = new Ring(Math.max(2, size >> 3));
+        this.terminalFraction = terminalFraction;
+    }
+
+    public synchronized void add(long stateKey, int action, double reward, long nextStateKey, boolean terminal) {
+        all.add(stateKey, action, reward, nextStateKey, terminal);
+        if (terminal) {
+            terminals.add(stateKey, action, reward, nextStateKey, true);
+        }
+        added++;
+    }
+
+    // 最大 batchSize 個の遷移を無作為に選んで配列に書き込み、書き込んだ数を返す
+    public synchronized int sample(Random random, int batchSize, long[] stateKeys, int[] actions, double[] rewards,
+            long[] nextStateKeys, boolean[] terminalFlags) {
+        if (all.size == 0) {
+            return 0;
+        }
+        for (int i = 0; i < batchSize; i++) {
+            Ring ring = terminals.size > 0 && random.nextDouble() < terminalFraction ? terminals : all;
+            int slot = random.nextInt(ring.size);
+            stateKeys[i] = ring.stateKeys[slot];
+            actions[i] = ring.actions[slot];
+            rewards[i] = ring.rewards[slot];
+            nextStateKeys[i] = ring.nextStateKeys[slot];
+            terminalFlags[i] = ring.terminalFlags[slot];
+        }
+        return batchSize;
+    }
+
+    // これまでに追加された遷移の総数（上書きされた分も含む）
+    public synchronized long added() {
+        return added;
+    }
+
+    public synchronized int size() {
+        return all.size;
+    }
+
+    private static final class Ring {
+        final long[] stateKeys;
+        final byte[] actions;
+        final double[] rewards;
+        final long[] nextStateKeys;
+        final boolean[] terminalFlags;
+        final int mask;
+        int head;
+        int size;
+
+        Ring(int capacity) {
+            stateKeys = new long[capacity];
+            actions = new byte[capacity];
+            rewards = new double[capacity];
+            nextStateKeys = new long[capacity];
+            terminalFlags = new boolean[capacity];
+            mask = capacity - 1;
+        }
+
+        void add(long stateKey, int action, double reward, long nextStateKey, boolean terminal) {
+            stateKeys[head] = stateKey;
+            actions[head] = (byte) action;
+            rewards[head] = reward;
+            nextStateKeys[head] = nextStateKey;
+            terminalFlags[head] = terminal;
+            head = (head + 1) & mask;
+            if (size <= mask) {
+                size++;
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package gravityconnect;
+
+import java.util.Random;
+import java.util.concurrent.locks.LockSupport;
+
+// ReplayBuffer からバッチを取り出してエージェントのQ値テーブルを更新する
+// catchUp() を行動側のスレッドから呼ぶか、start() で専用の学習スレッドを動かす
+public class ReplayLearner {
+    private final LearningAgent agent;
+    private final ReplayBuffer buffer;
+    private final double replayRatio; // 追加された遷移1件あたりの更新回数
+    private final Random random;
+    private final long[] stateKeys;
+    private final int[] actions;
+    private final double[] rewards;
+    private final long[] nextStateKeys;
+    private final boolean[] terminalFlags;
+    private long updates;
+    private volatile boolean running;
+    private Thread thread;
+    private TrainingMetrics metrics;
+
+    public ReplayLearner(LearningAgent agent, ReplayBuffer buffer, int batchSize, double replayRatio, Random random) {
+        this.agent = agent;
+        this.buffer = buffer;
+        this.replayRatio = replayRatio;
+        this.random = random;
+        stateKeys = new long[batchSize];
+        actions = new int[batchSize];
+        rewards = new double[batchSize];
+        nextStateKeys = new long[batchSize];
+        terminalFlags = new boolean[batchSize];
+    }
+
+    // 設定されていればバッチごとに更新数と更新1回あたりの時間を記録する
+    public void setMetrics(TrainingMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    // バッチを1つ適用し、適用した遷移の数を返す
+    public int learnBatch() {
+        int count = buffer.sample(random, stateKeys.length, stateKeys, actions, rewards, nextStateKeys, terminalFlags);
+        long start = metrics != null ? System.nanoTime() : 0L;
+        for (int i = 0; i < count; i++) {
+            agent.updateQTable(stateKeys[i], actions[i], rewards[i], nextStateKeys[i], terminalFlags[i]);
+        }
+        updates += count;
+        if (metrics != null && count > 0) {
+            metrics.updateTimed((System.nanoTime() - start) / count);
+            metrics.updated(count);
+        }
+        return count;
+    }
+
+    // 追加された遷移数 × replayRatio に追いつくまでバッチを適用する
+    public void catchUp() {
+        while (updates < buffer.added() * replayRatio) {
+            if (learnBatch() == 0) {
+                return;
+            }
+        }
+    }
+
+    // 専用スレッドで学習を続ける（行動と学習を並行させる場合は QTable がスレッドセーフであること）
+    public void start() {
+        running = true;
+        thread = new Thread(() -> {
+            while (running) {
+                catchUp();
+                LockSupport.parkNanos(100_000L); // 新しい遷移を待つ
+            }
+            catchUp();
+        }, "replay-learner");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // 残りの遷移を反映してから学習スレッドを止める
+    public void stop() throws InterruptedException {
+        running = false;
+        if (thread != null) {
+            thread.join();
+            thread = null;
+        }
+    }
+
+    public long updates() {
+        return updates;
+    }
+}
@@ -0,0 +1,335 @@
+package gravityconnect;
+
+import java.util.Random;
+
+// 反復深化の negamax（αβ枝刈り）で手を選ぶプレイヤー
+// 中央の列から順に調べ、固定サイズの置換表（Zobrist ハッシュ）で同じ局面の再探索を省く
+// 1手あたりの持ち時間を使い切るか、スレッドに割り込まれると、最後に探索を終えた深さの最善手を返す
+public class SearchPlayer implements Player {
+    public static final int UNSOLVED = 2;
+    private static final int WIN_SCORE = 1_000_000;
+    private static final int INFINITY = WIN_SCORE + 1;
+    private static final int MATE_BOUND = WIN_SCORE - GravityConnectFour.ROWS * GravityConnectFour.COLS - 1;
+    private static final int[] COLUMN_ORDER = { 3, 2, 4, 1, 5, 0, 6 };
+    private static final long[] WINDOWS = windows(); // 4マスの並び（69通り）
+    private static final int[] WINDOW_SCORES = { 0, 1, 8, 64, 0 }; // 片方の駒だけが n 個ある並びの評価
+    private static final long CENTER_MASK = 0x3FL << (3 * GravityConnectFour.COLUMN_BITS);
+    private static final long[][] ZOBRIST = zobrist(); // [駒の種類][ビット位置]
+
+    // 置換表の値の種類
+    private static final byte EXACT = 0;
+    private static final byte LOWER = 1;
+    private static final byte UPPER = 2;
+
+    private final long timeBudgetNanos;
+    private final int maxDepth;
+    private final GravityConnectFour board = new GravityConnectFour();
+    // 置換表。2エントリで1バケットとし、0番は深い探索を優先して残し、1番は常に上書きする
+    private final long[] ttKeys;
+    private final int[] ttScores;
+    private final byte[] ttDepths;
+    private final byte[] ttFlags;
+    private final byte[] ttMoves;
+    private final int ttBucketMask;
+    private long hash;
+    private long deadline;
+    private long nodes;
+    private boolean aborted;
+    private int rootScore;
+    private int completedDepth;
+    private int solvedDepth; // 盤面が埋まるまでの手数（ここまで読めば引き分けも確定する）
+
+    public SearchPlayer(long timeBudgetMillis) {
+        this(timeBudgetMillis, GravityConnectFour.ROWS * GravityConnectFour.COLS, 1 << 20);
+    }
+
+    // ttEntries は置換表のエントリ数（2のべき乗に切り上げる）
+    public SearchPlayer(long timeBudgetMillis, int maxDepth, int ttEntries) {
+        this.timeBudgetNanos = timeBudgetMillis * 1_000_000L;
+        this.maxDepth = maxDepth;
+        int entries = Integer.highestOneBit(Math.max(2, ttEntries - 1)) << 1;
+        ttKeys = new long[entries];
+        ttScores = new int[entries];
+        ttDepths = new byte[entries];
+        ttFlags = new byte[entries];
+        ttMoves = new byte[entries];
+        ttBucketMask = entries / 2 - 1;
+    }
+
+    @Override
+    public int chooseAction(GravityConnectFour game) {
+        board.copyFrom(game);
+        hash = zobristHash(board);
+        char side = sideToMove(board);
+        deadline = System.nanoTime() + timeBudgetNanos;
+        aborted = false;
+        nodes = 0;
+        // 前の局面の結果を残さない（深さ1の途中で時間切れになっても getSolvedResult が UNSOLVED を返すように）
+        completedDepth = 0;
+        rootScore = 0;
+        solvedDepth = Integer.MAX_VALUE;
+
+        int bestMove = -1;
+        for (int col : COLUMN_ORDER) {
+            if (board.isWinningMove(col, side)) {
+                rootScore = WIN_SCORE - 1;
+                return col;
+            }
+            if (bestMove < 0 && board.canPlay(col)) {
+                bestMove = col;
+            }
+        }
+        if (bestMove < 0) {
+            rootScore = 0;
+            solvedDepth = 0;
+            return COLUMN_ORDER[0]; // 盤面が埋まっている
+        }
+
+        int remaining = GravityConnectFour.ROWS * GravityConnectFour.COLS - board.getMoveCount();
+        solvedDepth = remaining;
+        for (int depth = 1; depth <= Math.min(maxDepth, remaining); depth++) {
+            int move = searchRoot(depth, side);
+            if (aborted) {
+                break;
+            }
+            bestMove = move;
+            completedDepth = depth;
+            if (Math.abs(rootScore) > MATE_BOUND) {
+                break; // 勝敗が読み切れた
+            }
+        }
+        return bestMove;
+    }
+
+    // 直前の chooseAction で読み切った深さ（0 なら深さ1も終わらずに時間切れになった。すぐ勝てる手を返した場合も 0）
+    public int getCompletedDepth() {
+        return completedDepth;
+    }
+
+    // 直前の chooseAction で勝敗が読み切れたなら手番側から見た結果（1: 勝ち, 0: 引き分け, -1: 負け）、読み切れなければ UNSOLVED
+    public int getSolvedResult() {
+        if (rootScore > MATE_BOUND) {
+            return 1;
+        }
+        if (rootScore < -MATE_BOUND) {
+            return -1;
+        }
+        return completedDepth >= solvedDepth ? 0 : UNSOLVED;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    private int searchRoot(int depth, char side) {
+        int alpha = -INFINITY;
+        int bestMove = -1;
+        int bestScore = -INFINITY;
+        int ttMove = probeMove();
+        for (int i = -1; i < COLUMN_ORDER.length; i++) {
+            int col = i < 0 ? ttMove : COLUMN_ORDER[i];
+            if (col < 0 || (i >= 0 && col == ttMove) || !board.canPlay(col)) {
+                continue;
+            }
+            makeMove(col, side);
+            int score = -negamax(depth - 1, -INFINITY, -alpha, opponent(side), 1);
+            unmakeMove(col, side);
+            if (aborted) {
+                return bestMove;
+            }
+            if (score > bestScore) {
+                bestScore = score;
+                bestMove = col;
+            }
+            alpha = Math.max(alpha, score);
+        }
+        rootScore = bestScore;
+        store(depth, bestScore, EXACT, bestMove, 0);
+        return bestMove;
+    }
+
+    private int negamax(int depth, int alpha, int beta, char side, int ply) {
+        // 持ち時間切れか、スレッドへの割り込み（GUI が思考を取り消した）で打ち切り、それまでに読み切った深さの手を返す
+        if ((++nodes & 1023) == 0 && (System.nanoTime() > deadline || Thread.currentThread().isInterrupted())) {
+            aborted = true;
+        }
+        if (aborted) {
+            return 0;
+        }
+        for (int col = 0; col < GravityConnectFour.COLS; col++) {
+            if (board.isWinningMove(col, side)) {
+                return WIN_SCORE - ply;
+            }
+        }
+        if (board.isFull()) {
+            return 0;
+        }
+        if (depth == 0) {
+            return evaluate(side);
+        }
+
+        // 置換表を引く
+        int alphaOriginal = alpha;
+        int ttMove = -1;
+        int entry = findEntry();
+        if (entry >= 0) {
+            ttMove = ttMoves[entry];
+            if (ttDepths[entry] >= depth) {
+                int score = fromTable(ttScores[entry], ply);
+                if (ttFlags[entry] == EXACT) {
+                    return score;
+                } else if (ttFlags[entry] == LOWER) {
+                    alpha = Math.max(alpha, score);
+                } else {
+                    beta = Math.min(beta, score);
+                }
+                if (alpha >= beta) {
+                    return score;
+                }
+            }
+        }
+
+        int bestScore = -INFINITY;
+        int bestMove = -1;
+        for (int i = -1; i < COLUMN_ORDER.length; i++) {
+            int col = i < 0 ? ttMove : COLUMN_ORDER[i];
+            if (col < 0 || (i >= 0 && col == ttMove) || !board.canPlay(col)) {
+                continue;
+            }
+            makeMove(col, side);
+            int score = -negamax(depth - 1, -beta, -alpha, opponent(side), ply + 1);
+            unmakeMove(col, side);
+            if (aborted) {
+                return 0;
+            }
+            if (score > bestScore) {
+                bestScore = score;
+                bestMove = col;
+            }
+            alpha = Math.max(alpha, score);
+            if (alpha >= beta) {
+                break;
+            }
+        }
+
+        byte flag = bestScore <= alphaOriginal ? UPPER : bestScore >= beta ? LOWER : EXACT;
+        store(depth, bestScore, flag, bestMove, ply);
+        return bestScore;
+    }
+
+    // 手番側から見た静的評価（どちらか一方の駒だけが入った並びの数と中央列の駒）
+    private int evaluate(char side) {
+        long own = board.getMask(side);
+        long other = board.getMask(opponent(side));
+        int score = 3 * (Long.bitCount(own & CENTER_MASK) - Long.bitCount(other & CENTER_MASK));
+        for (long window : WINDOWS) {
+            if ((window & other) == 0) {
+                score += WINDOW_SCORES[Long.bitCount(window & own)];
+            } else if ((window & own) == 0) {
+                score -= WINDOW_SCORES[Long.bitCount(window & other)];
+            }
+        }
+        return score;
+    }
+
+    private void makeMove(int col, char side) {
+        hash ^= ZOBRIST[side == 'X' ? 0 : 1][col * GravityConnectFour.COLUMN_BITS + board.getHeight(col)];
+        board.dropPiece(col, side);
+    }
+
+    private void unmakeMove(int col, char side) {
+        board.undo();
+        hash ^= ZOBRIST[side == 'X' ? 0 : 1][col * GravityConnectFour.COLUMN_BITS + board.getHeight(col)];
+    }
+
+    private int findEntry() {
+        int bucket = (int) (hash & ttBucketMask) * 2;
+        if (ttKeys[bucket] == hash) {
+            return bucket;
+        }
+        if (ttKeys[bucket + 1] == hash) {
+            return bucket + 1;
+        }
+        return -1;
+    }
+
+    private int probeMove() {
+        int entry = findEntry();
+        return entry < 0 ? -1 : ttMoves[entry];
+    }
+
+    private void store(int depth, int score, byte flag, int move, int ply) {
+        int bucket = (int) (hash & ttBucketMask) * 2;
+        int entry = ttKeys[bucket] == hash || depth >= ttDepths[bucket] ? bucket : bucket + 1;
+        ttKeys[entry] = hash;
+        ttScores[entry] = toTable(score, ply);
+        ttDepths[entry] = (byte) depth;
+        ttFlags[entry] = flag;
+        ttMoves[entry] = (byte) move;
+    }
+
+    // 勝敗の評価値は「何手後に決着するか」を含むので、置換表には局面からの手数に直して入れる
+    private static int toTable(int score, int ply) {
+        if (score > MATE_BOUND) {
+            return score + ply;
+        }
+        if (score < -MATE_BOUND) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        if (score > MATE_BOUND) {
+            return score - ply;
+        }
+        if (score < -MATE_BOUND) {
+            return score + ply;
+        }
+        return score;
+    }
+
+    private static char sideToMove(GravityConnectFour game) {
+        return game.getMoveCount() % 2 == 0 ? 'X' : 'O';
+    }
+
+    private static char opponent(char side) {
+        return side == 'X' ? 'O' : 'X';
+    }
+
+    private static long zobristHash(GravityConnectFour game) {
+        long h = 0L;
+        long x = game.getMask('X');
+        long o = game.getMask('O');
+        for (int bit = 0; bit < 64; bit++) {
+            if ((x & (1L << bit)) != 0) {
+                h ^= ZOBRIST[0][bit];
+            } else if ((o & (1L << bit)) != 0) {
+                h ^= ZOBRIST[1][bit];
+            }
+        }
+        return h;
+    }
+
+    private static long[][] zobrist() {
+        Random random = new Random(0x5EED_C4L);
+        long[][] keys = new long[2][GravityConnectFour.COLS * GravityConnectFour.COLUMN_BITS];
+        for (long[] side : keys) {
+            for (int i = 0; i < side.length; i++) {
+                side[i] = random.nextLong();
+            }
+        }
+        return keys;
+    }
+
+    private static long[] windows() {
+        int[][] lines = GravityConnectFour.lines(4);
+        long[] windows = new long[lines.length];
+        for (int i = 0; i < lines.length; i++) {
+            for (int cell : lines[i]) {
+                windows[i] |= 1L << cell;
+            }
+        }
+        return windows;
+    }
+}
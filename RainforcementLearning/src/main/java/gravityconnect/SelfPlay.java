@@ -0,0 +1,125 @@
+package gravityconnect;
+
+// 2つのエージェントによる自己対戦を1エピソードずつ進める（スレッドごとに1つ使う）
+// 片方を SearchPlayer などの学習しないプレイヤーにすると、学習エージェントの対戦相手として使える
+public class SelfPlay {
+    private final GravityConnectFour game = new GravityConnectFour();
+    private final Player player1; // 'X'
+    private final Player player2; // 'O'
+    private final LearningAgent agent1; // 学習するプレイヤーのみ（学習しないなら null）
+    private final LearningAgent agent2;
+    private ReplayBuffer replay1; // 設定されていれば Q 値を直接更新せず遷移を貯める
+    private ReplayBuffer replay2;
+    private GameRecordWriter recorder; // 設定されていれば終局した対局を記録する
+    private TrainingMetrics metrics; // 設定されていれば対局と更新の指標を記録する
+    private int updateCount; // 更新時間は UPDATE_SAMPLE 回に1回だけ測る
+    private static final int UPDATE_SAMPLE = 64;
+
+    public SelfPlay(Player player1, Player player2) {
+        this.player1 = player1;
+        this.player2 = player2;
+        this.agent1 = player1 instanceof LearningAgent ? (LearningAgent) player1 : null;
+        this.agent2 = player2 instanceof LearningAgent ? (LearningAgent) player2 : null;
+    }
+
+    // 経験再生を使う場合に、エージェントごとの遷移の貯め先を設定する
+    public void setReplayBuffers(ReplayBuffer replay1, ReplayBuffer replay2) {
+        this.replay1 = replay1;
+        this.replay2 = replay2;
+    }
+
+    // 対局の記録先を設定する（null なら記録しない）
+    public void setRecorder(GameRecordWriter recorder) {
+        this.recorder = recorder;
+    }
+
+    public void setMetrics(TrainingMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    // 1ゲームを最後まで行い、勝者（引き分けなら ' '）を返す
+    public char playEpisode() {
+        long start = metrics != null ? System.nanoTime() : 0L;
+        game.reset(); // 新しいゲームを開始
+        boolean gameOver = false;
+        char currentPlayer = 'X'; // 'X' が agent1, 'O' が agent2
+        char winner = ' ';
+
+        while (!gameOver) {
+            int action;
+            Player current;
+            LearningAgent currentAgent;
+
+            // 現在のプレイヤーに基づいてエージェントを選択
+            if (currentPlayer == 'X') {
+                current = player1;
+                currentAgent = agent1;
+            } else {
+                current = player2;
+                currentAgent = agent2;
+            }
+
+            // エージェントの行動を選択し、駒を置く
+            action = current.chooseAction(game);
+            boolean validMove = game.dropPiece(action, currentPlayer);
+
+            if (validMove) {
+                // 報酬を計算し、Q値を更新
+                long nextKey = game.getKey();
+                boolean won = game.lastMoveWon();
+                if (currentAgent != null) {
+                    double reward = currentAgent.getReward(game, currentPlayer, gameOver, action);
+                    gameOver = won || game.isFull();
+                    learn(currentAgent, game.getKey(), action, reward, nextKey, gameOver);
+                } else {
+                    gameOver = won || game.isFull();
+                }
+
+                if (gameOver) {
+                    // 勝利や引き分けの場合、相手のエージェントにも報酬を与える
+                    double opponentReward = (currentPlayer == 'X') ? -1.0 : 1.0;
+                    LearningAgent opponentAgent = (currentPlayer == 'X') ? agent2 : agent1;
+                    if (opponentAgent != null) {
+                        learn(opponentAgent, game.getKey(), action, opponentReward, nextKey, true);
+                    }
+                    winner = won ? currentPlayer : ' ';
+                    break;
+                }
+
+                // プレイヤーを交代
+                currentPlayer = (currentPlayer == 'X') ? 'O' : 'X';
+            }
+        }
+
+        if (recorder != null) {
+            recorder.record(game, winner);
+        }
+        if (metrics != null) {
+            metrics.episodeFinished(winner, game.getMoveCount(), System.nanoTime() - start);
+        }
+
+        // 学習後に探索率を調整
+        if (agent1 != null) {
+            agent1.updateExplorationRate();
+        }
+        if (agent2 != null) {
+            agent2.updateExplorationRate();
+        }
+        return winner;
+    }
+
+    // 直接更新でも経験再生でも terminal を渡し、終端の遷移は報酬だけを目標にする（どちらの方法でも同じ目標で学習する）
+    private void learn(LearningAgent agent, long boardKey, int action, double reward, long nextKey, boolean terminal) {
+        ReplayBuffer replay = agent == agent1 ? replay1 : replay2;
+        if (replay != null) {
+            replay.add(boardKey, action, reward, nextKey, terminal);
+        } else if (metrics != null && ++updateCount % UPDATE_SAMPLE == 0) {
+            long start = System.nanoTime();
+            agent.updateQTable(boardKey, action, reward, nextKey, terminal);
+            metrics.updateTimed(System.nanoTime() - start);
+            metrics.updated(UPDATE_SAMPLE);
+        } else {
+            agent.updateQTable(boardKey, action, reward, nextKey, terminal);
+        }
+    }
+}
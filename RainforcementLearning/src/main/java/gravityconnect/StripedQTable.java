@@ -0,0 +1,153 @@
+package gravityconnect;
+
+// 複数スレッドから共有するためのロック分割されたQ値テーブル
+// キーのハッシュ上位ビットでストライプを選び、ストライプごとにロックを取る
+public class StripedQTable implements QTable {
+    private final QTable[] stripes;
+    private final int shift;
+
+    // stripes の長さは2のべき乗であること
+    public StripedQTable(QTable[] stripes) {
+        this.stripes = stripes;
+        this.shift = 64 - Integer.numberOfTrailingZeros(stripes.length);
+    }
+
+    // ヒープ上の HeapQTable を stripeCount 個（2のべき乗に切り上げ）使う
+    public static StripedQTable onHeap(int stripeCount) {
+        return onHeap(stripeCount, QPrecision.DOUBLE);
+    }
+
+    // Q 値の精度を指定して stripeCount 個のテーブルを使う
+    public static StripedQTable onHeap(int stripeCount, QPrecision precision) {
+        QTable[] stripes = new QTable[Integer.highestOneBit(Math.max(1, stripeCount * 2 - 1))];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = precision.newTable(1024);
+        }
+        return new StripedQTable(stripes);
+    }
+
+    // 全体で maxSize 状態までの BoundedQTable を stripeCount 個に分けて使う
+    public static StripedQTable bounded(int stripeCount, int maxSize) {
+        QTable[] stripes = new QTable[Integer.highestOneBit(Math.max(1, stripeCount * 2 - 1))];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new BoundedQTable(maxSize / stripes.length);
+        }
+        return new StripedQTable(stripes);
+    }
+
+    @Override
+    public boolean contains(long key) {
+        QTable stripe = stripe(key);
+        synchronized (stripe) {
+            return stripe.contains(key);
+        }
+    }
+
+    @Override
+    public boolean getRow(long key, double[] out) {
+        QTable stripe = stripe(key);
+        synchronized (stripe) {
+            return stripe.getRow(key, out);
+        }
+    }
+
+    @Override
+    public boolean peekRow(long key, double[] out) {
+        QTable stripe = stripe(key);
+        synchronized (stripe) {
+            return stripe.peekRow(key, out);
+        }
+    }
+
+    @Override
+    public double get(long key, int action) {
+        QTable stripe = stripe(key);
+        synchronized (stripe) {
+            return stripe.get(key, action);
+        }
+    }
+
+    @Override
+    public double maxValue(long key) {
+        QTable stripe = stripe(key);
+        synchronized (stripe) {
+            return stripe.maxValue(key);
+        }
+    }
+
+    @Override
+    public void insert(long key) {
+        QTable stripe = stripe(key);
+        synchronized (stripe) {
+            stripe.insert(key);
+        }
+    }
+
+    @Override
+    public void update(long key, int action, double target, double learningRate) {
+        QTable stripe = stripe(key);
+        synchronized (stripe) {
+            stripe.update(key, action, target, learningRate);
+        }
+    }
+
+    @Override
+    public void put(long key, double[] row) {
+        QTable stripe = stripe(key);
+        synchronized (stripe) {
+            stripe.put(key, row);
+        }
+    }
+
+    // キーはストライプに均等に散るので、それぞれを等分した大きさまで広げる
+    @Override
+    public void reserve(long states) {
+        for (QTable stripe : stripes) {
+            synchronized (stripe) {
+                stripe.reserve(states / stripes.length + 1);
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (QTable stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    // ストライプのスロットを順につないだ番号にする
+    @Override
+    public long slots() {
+        long slots = 0;
+        for (QTable stripe : stripes) {
+            synchronized (stripe) {
+                slots += stripe.slots();
+            }
+        }
+        return slots;
+    }
+
+    @Override
+    public long keyAt(long slot) {
+        for (QTable stripe : stripes) {
+            synchronized (stripe) {
+                long slots = stripe.slots();
+                if (slot < slots) {
+                    return stripe.keyAt(slot);
+                }
+                slot -= slots;
+            }
+        }
+        return 0L;
+    }
+
+    private QTable stripe(long key) {
+        // ストライプ内の HeapQTable はハッシュの下位ビットを使うので上位ビットで振り分ける
+        return shift == 64 ? stripes[0] : stripes[(int) (HeapQTable.mix(key) >>> shift)];
+    }
+}
@@ -0,0 +1,200 @@
+package gravityconnect;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+// 参加者どうしの総当たり戦を ForkJoinPool で並列に行い、結果から Elo レーティングと95%信頼区間を求める
+// 組ごとに1つのタスクにして、空いたワーカーが残りの組を盗んで進める（探索プレイヤーの組だけ長くかかっても偏らない）
+// 序盤の数手はランダムに指し、同じ序盤を先手・後手を入れ替えて2局ずつ打つ（学習済みの方策は決定的なので毎局同じ対局になるのを避ける）
+public class Tournament {
+    private static final double ELO_SCALE = 400.0 / Math.log(10.0);
+    private static final double MAX_ELO = 3000.0;
+    // 組ごとに1局分の引き分けを事前分布として足す（全勝・全敗の参加者のレーティングが発散しないようにする）
+    private static final double PRIOR_DRAWS = 1.0;
+
+    // 対局ごとにプレイヤーを作る。タスクごとに別のインスタンスを作るので、スレッドセーフでなくてよい
+    public interface Entrant {
+        Player create(char side, Random random);
+    }
+
+    // 1人分の結果
+    public static final class Standing {
+        public final String name;
+        public final double elo;
+        public final double error; // 95%信頼区間の半幅
+        public final double score; // 勝ち 1, 引き分け 0.5 の平均
+        public final int games;
+
+        Standing(String name, double elo, double error, double score, int games) {
+            this.name = name;
+            this.elo = elo;
+            this.error = error;
+            this.score = score;
+            this.games = games;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-44s %6.0f +/- %4.0f  score %.3f  (%d games)", name, elo, error, score, games);
+        }
+    }
+
+    private final ForkJoinPool pool;
+    private final int gamesPerPair;
+    private final int openingPlies;
+    private final long seed;
+    private final List<String> names = new ArrayList<>();
+    private final List<Entrant> entrants = new ArrayList<>();
+
+    // gamesPerPair は1組あたりの対局数（先手・後手を半分ずつにするので偶数に切り上げる）
+    public Tournament(ForkJoinPool pool, int gamesPerPair, int openingPlies, long seed) {
+        this.pool = pool;
+        this.gamesPerPair = (gamesPerPair + 1) & ~1;
+        this.openingPlies = openingPlies;
+        this.seed = seed;
+    }
+
+    // 最初に加えた参加者のレーティングを 0 とする
+    public int add(String name, Entrant entrant) {
+        names.add(name);
+        entrants.add(entrant);
+        return names.size() - 1;
+    }
+
+    // 総当たり戦を行い、レーティングの高い順に返す
+    public List<Standing> play() throws InterruptedException {
+        int n = entrants.size();
+        double[][] points = new double[n][n]; // points[i][j]: i が j から得た点
+        int[][] games = new int[n][n];
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                int a = i;
+                int b = j;
+                tasks.add(() -> {
+                    // 各組のタスクは自分の [a][b], [b][a] だけに書き、invokeAll の完了で読み手に見える
+                    points[a][b] = playPair(a, b);
+                    points[b][a] = gamesPerPair - points[a][b];
+                    games[a][b] = gamesPerPair;
+                    games[b][a] = gamesPerPair;
+                    return null;
+                });
+            }
+        }
+        for (Future<Void> task : pool.invokeAll(tasks)) {
+            try {
+                task.get();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("tournament game failed", e.getCause());
+            }
+        }
+        return standings(points, games);
+    }
+
+    // a から見た得点
+    private double playPair(int a, int b) {
+        Random random = new Random(seed * 31 + a * 1_000_003L + b);
+        Player aX = entrants.get(a).create('X', new Random(random.nextLong()));
+        Player aO = entrants.get(a).create('O', new Random(random.nextLong()));
+        Player bX = entrants.get(b).create('X', new Random(random.nextLong()));
+        Player bO = entrants.get(b).create('O', new Random(random.nextLong()));
+        GravityConnectFour game = new GravityConnectFour();
+        double points = 0.0;
+        for (int g = 0; g < gamesPerPair; g += 2) {
+            long opening = random.nextLong();
+            points += score(play(game, aX, bO, opening), 'X');
+            points += score(play(game, bX, aO, opening), 'O');
+        }
+        return points;
+    }
+
+    private static double score(char winner, char side) {
+        return winner == ' ' ? 0.5 : winner == side ? 1.0 : 0.0;
+    }
+
+    // 序盤の openingPlies 手を opening の種でランダムに指してから対局し、勝者（引き分けなら ' '）を返す
+    private char play(GravityConnectFour game, Player x, Player o, long opening) {
+        game.reset();
+        Random random = new Random(opening);
+        char side = 'X';
+        for (int ply = 0; !game.isFull(); ply++) {
+            int col;
+            if (ply < openingPlies) {
+                int legal = game.legalMoves();
+                for (int skip = random.nextInt(Integer.bitCount(legal)); skip > 0; skip--) {
+                    legal &= legal - 1;
+                }
+                col = Integer.numberOfTrailingZeros(legal);
+            } else {
+                col = (side == 'X' ? x : o).chooseAction(game);
+                if (!game.canPlay(col)) {
+                    return side == 'X' ? 'O' : 'X'; // 置けない列を選んだら負け
+                }
+            }
+            game.dropPiece(col, side);
+            if (game.lastMoveWon()) {
+                return side;
+            }
+            side = side == 'X' ? 'O' : 'X';
+        }
+        return ' ';
+    }
+
+    // Bradley-Terry モデル（引き分けは半分の勝ち）の最尤推定をニュートン法で求め、Fisher 情報量から信頼区間を出す
+    private List<Standing> standings(double[][] points, int[][] games) {
+        int n = names.size();
+        double[] elo = new double[n];
+        for (int iteration = 0; iteration < 200; iteration++) {
+            double largestStep = 0.0;
+            for (int i = 1; i < n; i++) { // 0番は基準として動かさない
+                double gradient = 0.0;
+                double information = 0.0;
+                for (int j = 0; j < n; j++) {
+                    if (games[i][j] == 0) {
+                        continue;
+                    }
+                    double expected = expectedScore(elo[i], elo[j]);
+                    gradient += points[i][j] + 0.5 * PRIOR_DRAWS - (games[i][j] + PRIOR_DRAWS) * expected;
+                    information += (games[i][j] + PRIOR_DRAWS) * expected * (1.0 - expected);
+                }
+                double step = ELO_SCALE * gradient / Math.max(information, 1e-9);
+                step = Math.max(-200.0, Math.min(200.0, step)); // 差が大きいと情報量が小さく一歩が大きくなりすぎる
+                elo[i] = Math.max(-MAX_ELO, Math.min(MAX_ELO, elo[i] + step));
+                largestStep = Math.max(largestStep, Math.abs(step));
+            }
+            if (largestStep < 0.01) {
+                break;
+            }
+        }
+
+        List<Standing> standings = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            double info = 0.0;
+            double total = 0.0;
+            int played = 0;
+            for (int j = 0; j < n; j++) {
+                if (games[i][j] > 0) {
+                    double expected = expectedScore(elo[i], elo[j]);
+                    info += (games[i][j] + PRIOR_DRAWS) * expected * (1.0 - expected);
+                    total += points[i][j];
+                    played += games[i][j];
+                }
+            }
+            double error = i == 0 ? 0.0 : 1.96 * ELO_SCALE / Math.sqrt(Math.max(info, 1e-9));
+            standings.add(new Standing(names.get(i), elo[i], Math.min(error, MAX_ELO), total / Math.max(played, 1),
+                    played));
+        }
+        standings.sort(Comparator.comparingDouble((Standing s) -> s.elo).reversed());
+        return standings;
+    }
+
+    private static double expectedScore(double elo, double opponentElo) {
+        return 1.0 / (1.0 + Math.exp((opponentElo - elo) / ELO_SCALE));
+    }
+}
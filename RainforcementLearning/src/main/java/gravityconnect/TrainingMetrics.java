@@ -0,0 +1,137 @@
+package gravityconnect;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+// 学習ループの指標。記録側（自己対戦のスレッド）は LongAdder と LatencyHistogram に加算するだけでロックを取らない
+// 表示は MetricsReporter が、外部からの参照は JMX（TrainingMetricsMXBean）が受け持つ
+public class TrainingMetrics implements TrainingMetricsMXBean {
+    public static final String OBJECT_NAME = "gravityconnect:type=TrainingMetrics";
+
+    private final LongAdder episodes = new LongAdder();
+    private final LongAdder moves = new LongAdder();
+    private final LongAdder xWins = new LongAdder();
+    private final LongAdder oWins = new LongAdder();
+    private final LongAdder draws = new LongAdder();
+    private final LongAdder updates = new LongAdder();
+    private final LatencyHistogram episodeLatency = new LatencyHistogram();
+    private final LatencyHistogram updateLatency = new LatencyHistogram(); // 更新の一部だけを計測する
+    private final long startNanos = System.nanoTime();
+    // 状態数と探索率を読む対象（学習する 'O' 側）
+    private volatile QTable table;
+    private volatile LearningAgent agent;
+
+    // table は Q 値テーブルを持たないエージェントなら null
+    public void watch(QTable table, LearningAgent agent) {
+        this.table = table;
+        this.agent = agent;
+    }
+
+    public void episodeFinished(char winner, int moveCount, long nanos) {
+        episodes.increment();
+        moves.add(moveCount);
+        if (winner == 'X') {
+            xWins.increment();
+        } else if (winner == 'O') {
+            oWins.increment();
+        } else {
+            draws.increment();
+        }
+        episodeLatency.record(nanos);
+    }
+
+    public void updated(int count) {
+        updates.add(count);
+    }
+
+    // 計測した更新1回あたりの所要時間
+    public void updateTimed(long nanos) {
+        updateLatency.record(nanos);
+    }
+
+    // プラットフォームの MBeanServer に登録する（同じ名前が登録済みなら置き換える）
+    public void registerMBean() {
+        try {
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            var server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(this, name);
+        } catch (JMException e) {
+            throw new IllegalStateException("failed to register " + OBJECT_NAME, e);
+        }
+    }
+
+    @Override
+    public long getEpisodes() {
+        return episodes.sum();
+    }
+
+    @Override
+    public long getMoves() {
+        return moves.sum();
+    }
+
+    @Override
+    public long getXWins() {
+        return xWins.sum();
+    }
+
+    @Override
+    public long getOWins() {
+        return oWins.sum();
+    }
+
+    @Override
+    public long getDraws() {
+        return draws.sum();
+    }
+
+    @Override
+    public long getUpdates() {
+        return updates.sum();
+    }
+
+    @Override
+    public int getQTableSize() {
+        QTable current = table;
+        return current != null ? current.size() : 0;
+    }
+
+    @Override
+    public double getExplorationRate() {
+        LearningAgent current = agent;
+        return current != null ? current.getExplorationRate() : Double.NaN;
+    }
+
+    @Override
+    public double getEpisodesPerSecond() {
+        return getEpisodes() / ((System.nanoTime() - startNanos) / 1e9);
+    }
+
+    @Override
+    public long getUpdateLatencyP50Nanos() {
+        return updateLatency.percentile(50);
+    }
+
+    @Override
+    public long getUpdateLatencyP99Nanos() {
+        return updateLatency.percentile(99);
+    }
+
+    @Override
+    public long getEpisodeLatencyP99Nanos() {
+        return episodeLatency.percentile(99);
+    }
+
+    public LatencyHistogram getUpdateLatency() {
+        return updateLatency;
+    }
+
+    public LatencyHistogram getEpisodeLatency() {
+        return episodeLatency;
+    }
+}
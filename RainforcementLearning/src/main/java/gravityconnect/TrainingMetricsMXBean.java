@@ -0,0 +1,28 @@
+package gravityconnect;
+
+// JMX（jconsole など）から見える学習の指標
+public interface TrainingMetricsMXBean {
+    long getEpisodes();
+
+    long getMoves();
+
+    long getXWins();
+
+    long getOWins();
+
+    long getDraws();
+
+    long getUpdates();
+
+    int getQTableSize();
+
+    double getExplorationRate();
+
+    double getEpisodesPerSecond();
+
+    long getUpdateLatencyP50Nanos();
+
+    long getUpdateLatencyP99Nanos();
+
+    long getEpisodeLatencyP99Nanos();
+}
@@ -0,0 +1,52 @@
+package gravityconnect;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+// MetricsReporter が区間ごとに出す JFR イベント（-XX:StartFlightRecording で記録したときだけ残る）
+@Name("gravityconnect.TrainingSnapshot")
+@Label("Training Snapshot")
+@Category("Gravity Connect")
+@Description("Training throughput and Q-table state over one reporting interval")
+class TrainingSnapshotEvent extends Event {
+    @Label("Episodes")
+    long episodes;
+
+    @Label("Episodes per Second")
+    double episodesPerSecond;
+
+    @Label("Moves per Second")
+    double movesPerSecond;
+
+    @Label("X Win Rate")
+    double xWinRate;
+
+    @Label("O Win Rate")
+    double oWinRate;
+
+    @Label("Draw Rate")
+    double drawRate;
+
+    @Label("Q-table States")
+    int states;
+
+    @Label("Heap Used")
+    @DataAmount
+    long heapUsed;
+
+    @Label("Exploration Rate")
+    double explorationRate;
+
+    @Label("Update Latency p50")
+    @Timespan
+    long updateP50;
+
+    @Label("Update Latency p99")
+    @Timespan
+    long updateP99;
+}
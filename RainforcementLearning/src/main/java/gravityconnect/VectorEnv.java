@@ -0,0 +1,135 @@
+package gravityconnect;
+
+import java.util.Random;
+
+// size 局の対局をまとめて1手ずつ進める環境
+// 盤面はオブジェクトを作らずに局ごとのビットボード（'X' と 'O'）と手数の配列で持ち、step() 1回で全局に1手ずつ指す
+// 決着した局はその場で初期局面に戻すので、呼び出し側は step() を繰り返すだけでよい
+// 今のところ学習の経路（SelfPlay, ParallelTrainer）からは使っておらず、VectorEnvBenchmark で測るだけの単体の部品
+public class VectorEnv {
+    // step() が局ごとに返す結果
+    public static final byte ONGOING = 0;
+    public static final byte WIN = 1; // 指した側の勝ち（盤面は初期局面に戻っている）
+    public static final byte DRAW = 2; // 引き分け（盤面は初期局面に戻っている）
+    public static final byte ILLEGAL = 3; // 範囲外の列か埋まった列を選んだので何もしていない（GravityConnectFour.dropPiece が false を返す場合）
+
+    private static final int CELLS = GravityConnectFour.ROWS * GravityConnectFour.COLS;
+    private static final long COLUMN_MASK = (1L << GravityConnectFour.ROWS) - 1;
+    private static final long TOP_MASK = GravityConnectFour.BOTTOM_MASK << (GravityConnectFour.ROWS - 1);
+
+    private final int size;
+    private final long[] xMasks;
+    private final long[] oMasks;
+    private final int[] moveCounts;
+    private long moves;
+    private long games;
+
+    public VectorEnv(int size) {
+        this.size = size;
+        xMasks = new long[size];
+        oMasks = new long[size];
+        moveCounts = new int[size];
+    }
+
+    // 局 i に actions[i] の列を指し、結果を outcomes[i] に書く
+    public void step(int[] actions, byte[] outcomes) {
+        long played = 0;
+        long finished = 0;
+        for (int i = 0; i < size; i++) {
+            int action = actions[i];
+            if (action < 0 || action >= GravityConnectFour.COLS) {
+                outcomes[i] = ILLEGAL; // 盤面の外のビットを立てないように、シフトする前に弾く
+                continue;
+            }
+            long x = xMasks[i];
+            long o = oMasks[i];
+            int shift = action * GravityConnectFour.COLUMN_BITS;
+            long occupied = x | o;
+            // 列の一番下の空きマス。列が埋まっていれば番兵ビットに繰り上がるので 0 になる
+            long bit = (occupied + (1L << shift)) & (COLUMN_MASK << shift);
+            if (bit == 0) {
+                outcomes[i] = ILLEGAL;
+                continue;
+            }
+            int count = moveCounts[i] + 1;
+            boolean xTurn = (count & 1) != 0;
+            long mover = (xTurn ? x : o) | bit;
+            played++;
+            byte outcome = GravityConnectFour.hasFour(mover) ? WIN : count == CELLS ? DRAW : ONGOING;
+            outcomes[i] = outcome;
+            if (outcome != ONGOING) {
+                xMasks[i] = 0L;
+                oMasks[i] = 0L;
+                moveCounts[i] = 0;
+                finished++;
+            } else {
+                xMasks[i] = xTurn ? mover : x;
+                oMasks[i] = xTurn ? o : mover;
+                moveCounts[i] = count;
+            }
+        }
+        moves += played;
+        games += finished;
+    }
+
+    // 全局に置ける列からランダムに選んだ手を actions に書く
+    public void randomActions(Random random, int[] actions) {
+        for (int i = 0; i < size; i++) {
+            int legal = legalMoves(i);
+            for (int skip = random.nextInt(Integer.bitCount(legal)); skip > 0; skip--) {
+                legal &= legal - 1;
+            }
+            actions[i] = Integer.numberOfTrailingZeros(legal);
+        }
+    }
+
+    // 局 i で置ける列のビットマスク（GravityConnectFour.legalMoves() と同じ形）
+    public int legalMoves(int i) {
+        long open = ~(xMasks[i] | oMasks[i]) & TOP_MASK;
+        int legal = 0;
+        for (int col = 0; col < GravityConnectFour.COLS; col++) {
+            legal |= (int) (open >>> (col * GravityConnectFour.COLUMN_BITS + GravityConnectFour.ROWS - 1) & 1) << col;
+        }
+        return legal;
+    }
+
+    // 局 i の GravityConnectFour.getKey() と同じキー
+    public long key(int i) {
+        long x = xMasks[i];
+        return x + (x | oMasks[i]) + GravityConnectFour.BOTTOM_MASK;
+    }
+
+    // 全局のキーを keys に書く
+    public void keys(long[] keys) {
+        for (int i = 0; i < size; i++) {
+            keys[i] = xMasks[i] + (xMasks[i] | oMasks[i]) + GravityConnectFour.BOTTOM_MASK;
+        }
+    }
+
+    // 局 i の手番（'X' または 'O'）
+    public char sideToMove(int i) {
+        return (moveCounts[i] & 1) == 0 ? 'X' : 'O';
+    }
+
+    // 局 i を game に写す（学習エージェントなど GravityConnectFour を受け取る処理に渡すとき）
+    public void copyTo(int i, GravityConnectFour game) {
+        game.setMasks(xMasks[i], oMasks[i]);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getMoveCount(int i) {
+        return moveCounts[i];
+    }
+
+    // これまでに指した手の数と、終わった局の数
+    public long moves() {
+        return moves;
+    }
+
+    public long games() {
+        return games;
+    }
+}
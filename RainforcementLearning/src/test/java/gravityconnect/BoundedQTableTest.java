@@ -0,0 +1,123 @@
+package gravityconnect;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+// BoundedQTable を HashMap と突き合わせ、追い出しと後ろ詰めの削除の後も残った状態の値が正しいことを確かめる
+class BoundedQTableTest {
+    private static final int MAX_SIZE = 1024;
+
+    @Test
+    void residentRowsMatchReferenceAcrossEvictions() {
+        BoundedQTable table = new BoundedQTable(MAX_SIZE);
+        Map<Long, double[]> reference = new HashMap<>();
+        Random random = new Random(42);
+        long[] keySpace = new long[MAX_SIZE * 4];
+        for (int i = 0; i < keySpace.length; i++) {
+            keySpace[i] = random.nextLong() | 1L; // 0 は空きスロットを表すので使わない
+        }
+
+        for (int step = 0; step < 400_000; step++) {
+            long key = keySpace[random.nextInt(keySpace.length)];
+            if (!table.contains(key)) {
+                reference.remove(key); // 追い出された状態は 0 からやり直す
+            }
+            int action = random.nextInt(QTable.ACTIONS);
+            double target = random.nextInt(4) == 0 ? 0.0 : random.nextGaussian();
+            table.update(key, action, target, 0.5);
+            double[] row = reference.computeIfAbsent(key, k -> new double[QTable.ACTIONS]);
+            row[action] += 0.5 * (target - row[action]);
+
+            if (step % 10_000 == 0) {
+                assertConsistent(table, reference);
+            }
+        }
+        assertConsistent(table, reference);
+        assertTrue(table.evictions() > 100_000, "evictions: " + table.evictions());
+    }
+
+    @Test
+    void insertOfZeroRowsNeverExceedsLimit() {
+        BoundedQTable table = new BoundedQTable(MAX_SIZE);
+        for (long key = 1; key <= MAX_SIZE * 8; key++) {
+            table.insert(key * 0x9E3779B97F4A7C15L | 1L);
+            assertTrue(table.size() <= MAX_SIZE);
+        }
+        assertEquals(MAX_SIZE, table.size());
+        assertEquals(MAX_SIZE * 7, table.evictions());
+    }
+
+    @Test
+    void sizeLimitFitsArrayIndices() {
+        assertEquals(BoundedQTable.MAX_STATES, BoundedQTable.maxSizeForBytes(40L << 30));
+        assertTrue(2L * BoundedQTable.MAX_STATES * QTable.ACTIONS <= Integer.MAX_VALUE);
+        assertThrows(IllegalArgumentException.class, () -> new BoundedQTable(BoundedQTable.MAX_STATES + 1));
+    }
+
+    @Test
+    void readOnlyViewDoesNotChangeEvictionOrder() {
+        BoundedQTable read = new BoundedQTable(MAX_SIZE);
+        BoundedQTable untouched = new BoundedQTable(MAX_SIZE);
+        QTable view = read.readOnlyView();
+        Random random = new Random(7);
+        double[] row = new double[QTable.ACTIONS];
+        double[] expected = new double[QTable.ACTIONS];
+        for (int step = 0; step < 50_000; step++) {
+            long key = (random.nextInt(MAX_SIZE * 4) + 1) * 0x9E3779B97F4A7C15L | 1L;
+            int action = random.nextInt(QTable.ACTIONS);
+            double target = random.nextGaussian();
+            read.update(key, action, target, 0.5);
+            untouched.update(key, action, target, 0.5);
+            long probe = read.keyAt(random.nextInt((int) read.slots()));
+            if (probe != 0L) {
+                assertTrue(view.getRow(probe, row));
+                for (int a = 0; a < QTable.ACTIONS; a++) {
+                    expected[a] = untouched.get(probe, a); // get は参照回数を変えない
+                }
+                assertArrayEquals(expected, row);
+            }
+        }
+        for (long slot = 0; slot < read.slots(); slot++) {
+            assertEquals(untouched.keyAt(slot), read.keyAt(slot));
+        }
+        assertThrows(UnsupportedOperationException.class, () -> view.update(1L, 0, 1.0, 0.5));
+    }
+
+    // 全スロットを見て、件数・上限・各行の値と最大値が参照と一致し、探索で見つかることを確かめる
+    private static void assertConsistent(BoundedQTable table, Map<Long, double[]> reference) {
+        double[] row = new double[QTable.ACTIONS];
+        int resident = 0;
+        for (long slot = 0; slot < table.slots(); slot++) {
+            long key = table.keyAt(slot);
+            if (key == 0L) {
+                continue;
+            }
+            resident++;
+            assertTrue(table.getRow(key, row), "resident key not found: " + key);
+            double[] expected = reference.get(key);
+            assertArrayEquals(expected, row, 1e-12);
+            double max = Double.NEGATIVE_INFINITY;
+            for (double value : expected) {
+                max = Math.max(max, value);
+            }
+            assertEquals(max, table.maxValue(key), 1e-12);
+        }
+        assertEquals(resident, table.size());
+        assertTrue(table.size() <= MAX_SIZE);
+        for (long key : reference.keySet()) {
+            if (!table.contains(key)) {
+                assertFalse(table.getRow(key, row));
+                assertEquals(0.0, table.get(key, 0));
+            }
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package gravityconnect;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// チェックポイントを書いて load で読み戻し、学習を止めて書いたものは全行が一致すること、
+// 学習中（追い出しが続く中）に書いたものは書き始めから終わりまで残っていた状態が1回ずつ入っていることを確かめる
+class QTableCheckpointerTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void roundTripIsExactForEveryTable() throws IOException {
+        QTable[] tables = {
+            new HeapQTable(),
+            new CompactQTable(QPrecision.FLOAT, 16),
+            new CompactQTable(QPrecision.FIXED16, 16),
+            new BoundedQTable(4096),
+        };
+        for (QTable table : tables) {
+            fill(table, 20_000, new Random(11));
+            for (boolean compress : new boolean[] { false, true }) {
+                Path path = dir.resolve(table.getClass().getSimpleName() + compress + ".ckpt");
+                try (QTableCheckpointer checkpointer = new QTableCheckpointer(table, path, 100, compress)) {
+                    checkpointer.checkpointNow();
+                    assertEquals(1, checkpointer.checkpoints());
+                }
+                QTable loaded = new HeapQTable();
+                assertEquals(table.size(), QTableCheckpointer.load(path, loaded));
+                assertSameRows(table, loaded);
+            }
+        }
+    }
+
+    @Test
+    void loadFillsMappedAndBoundedTables() throws IOException {
+        HeapQTable table = new HeapQTable();
+        fill(table, 30_000, new Random(12));
+        Path path = dir.resolve("heap.ckpt");
+        try (QTableCheckpointer checkpointer = new QTableCheckpointer(table, path, 100, true)) {
+            checkpointer.checkpointNow();
+        }
+
+        try (MappedQTable mapped = MappedQTable.open(dir.resolve("mapped.bin"), 16)) {
+            assertEquals(table.size(), QTableCheckpointer.load(path, mapped));
+            assertEquals(table.size(), mapped.size());
+            assertSameRows(table, mapped);
+        }
+
+        BoundedQTable bounded = new BoundedQTable(1024); // 入りきらない分は追い出される
+        assertEquals(table.size(), QTableCheckpointer.load(path, bounded));
+        assertEquals(1024, bounded.size());
+        double[] expected = new double[QTable.ACTIONS];
+        double[] row = new double[QTable.ACTIONS];
+        for (long slot = 0; slot < bounded.slots(); slot++) {
+            long key = bounded.keyAt(slot);
+            if (key != 0L) {
+                assertTrue(table.getRow(key, expected));
+                assertTrue(bounded.peekRow(key, row));
+                assertArrayEquals(expected, row);
+                assertEquals(max(expected), bounded.maxValue(key));
+            }
+        }
+    }
+
+    @Test
+    void checkpointDuringEvictionsKeepsEverySurvivor() throws IOException, InterruptedException {
+        int maxSize = 1 << 16; // 8チャンク分のスロット
+        BoundedQTable table = new BoundedQTable(maxSize);
+        Random random = new Random(13);
+        fill(table, maxSize * 2, random);
+        long[] hot = new long[maxSize / 2]; // 何度も更新して追い出されにくくする状態
+        int count = 0;
+        for (long slot = 0; slot < table.slots() && count < hot.length; slot++) {
+            if (table.keyAt(slot) != 0L) {
+                hot[count++] = table.keyAt(slot);
+            }
+        }
+
+        for (int pass = 0; pass < 5; pass++) {
+            Path path = dir.resolve("pass" + pass + ".ckpt");
+            Set<Long> survivors = residentKeys(table);
+            long evictions = table.evictions();
+            QTableCheckpointer checkpointer = new QTableCheckpointer(table, path, 1, false);
+            while (checkpointer.checkpoints() == 0) {
+                checkpointer.onEpisode();
+                for (int i = 0; i < 10_000; i++) {
+                    table.update(random.nextLong() | 1L, random.nextInt(QTable.ACTIONS), random.nextGaussian(), 0.5);
+                    table.update(hot[random.nextInt(hot.length)], random.nextInt(QTable.ACTIONS),
+                            random.nextGaussian(), 0.5);
+                }
+                survivors.retainAll(residentKeys(table));
+                Thread.sleep(1); // 書き込みスレッドに追いつかせる
+            }
+            checkpointer.close();
+            assertTrue(table.evictions() - evictions > 10_000, "evictions: " + (table.evictions() - evictions));
+
+            HeapQTable loaded = new HeapQTable();
+            long entries = QTableCheckpointer.load(path, loaded);
+            assertEquals(entries, loaded.size(), "duplicated entries");
+            for (long key : survivors) {
+                assertTrue(loaded.contains(key), "missing survivor: " + key);
+            }
+        }
+    }
+
+    private static void fill(QTable table, int updates, Random random) {
+        for (int i = 0; i < updates; i++) {
+            long key = random.nextLong() | 1L; // 0 は空きスロットを表すので使わない
+            table.update(key, random.nextInt(QTable.ACTIONS), random.nextGaussian(), 0.5);
+        }
+    }
+
+    private static Set<Long> residentKeys(QTable table) {
+        Set<Long> keys = new HashSet<>();
+        for (long slot = 0; slot < table.slots(); slot++) {
+            long key = table.keyAt(slot);
+            if (key != 0L) {
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
+
+    private static void assertSameRows(QTable expected, QTable actual) {
+        assertEquals(expected.size(), actual.size());
+        double[] want = new double[QTable.ACTIONS];
+        double[] row = new double[QTable.ACTIONS];
+        for (long slot = 0; slot < expected.slots(); slot++) {
+            long key = expected.keyAt(slot);
+            if (key == 0L) {
+                continue;
+            }
+            assertTrue(expected.peekRow(key, want));
+            assertTrue(actual.peekRow(key, row), "missing key: " + key);
+            assertArrayEquals(want, row);
+            assertEquals(max(want), actual.maxValue(key));
+        }
+    }
+
+    private static double max(double[] row) {
+        double max = row[0];
+        for (double value : row) {
+            max = Math.max(max, value);
+        }
+        return max;
+    }
+}
@@ -0,0 +1,79 @@
+package gravityconnect.benchmarks;
+
+import gravityconnect.GravityConnectFour;
+import gravityconnect.HeapQTable;
+import gravityconnect.QLearningAgent;
+import gravityconnect.SelfPlay;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// 自己対戦で学習済みのテーブルを使った行動選択とQ値更新
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AgentBenchmark {
+    private static final int POSITIONS = 1024;
+
+    @Param({ "20000" })
+    public int trainingEpisodes;
+
+    private GravityConnectFour[] positions;
+    private QLearningAgent agent;
+    private int index;
+
+    @Setup
+    public void setUp() {
+        QLearningAgent x = new QLearningAgent(new HeapQTable(), new Random(1));
+        agent = new QLearningAgent(new HeapQTable(), new Random(2));
+        SelfPlay selfPlay = new SelfPlay(x, agent);
+        for (int i = 0; i < trainingEpisodes; i++) {
+            selfPlay.playEpisode();
+        }
+        agent.setExplorationRate(0.0);
+        positions = Positions.random(POSITIONS, 41, 42L);
+    }
+
+    private GravityConnectFour next() {
+        index = (index + 1) & (POSITIONS - 1);
+        return positions[index];
+    }
+
+    @Benchmark
+    public int chooseAction() {
+        return agent.chooseAction(next());
+    }
+
+    // 互換用の char[][] 経路
+    @Benchmark
+    public int chooseActionCharBoard() {
+        return agent.chooseAction(next().getBoard());
+    }
+
+    @Benchmark
+    public void updateQTable() {
+        GravityConnectFour game = next();
+        agent.updateQTable(game.getKey(), index % GravityConnectFour.COLS, 0.0, game.getKey());
+    }
+
+    @Benchmark
+    public double getReward() {
+        GravityConnectFour game = next();
+        int col = index % GravityConnectFour.COLS;
+        return agent.getReward(game, Positions.sideToMove(game), false, col);
+    }
+}
@@ -0,0 +1,21 @@
+package gravityconnect.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// 使い方: mvn -B package && java -jar benchmarks/target/benchmarks.jar [JMH のオプション]
+//   例: java -jar benchmarks/target/benchmarks.jar QTableBenchmark -p tableSize=1000000
+// 割り当て量（gc.alloc.rate.norm）を常に見られるように GC プロファイラを有効にして実行する
+public class BenchmarkRunner {
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        new Runner(new OptionsBuilder()
+                .parent(commandLine)
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,85 @@
+package gravityconnect.benchmarks;
+
+import gravityconnect.GravityConnectFour;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// 着手生成と勝利判定
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EngineBenchmark {
+    private static final int POSITIONS = 1024;
+
+    private GravityConnectFour[] positions;
+    private int index;
+
+    @Setup
+    public void setUp() {
+        positions = Positions.random(POSITIONS, 41, 42L);
+    }
+
+    private GravityConnectFour next() {
+        index = (index + 1) & (POSITIONS - 1);
+        return positions[index];
+    }
+
+    // 合法手をすべて置いて戻す
+    @Benchmark
+    public int dropAndUndoAllColumns() {
+        GravityConnectFour game = next();
+        char piece = Positions.sideToMove(game);
+        int legal = 0;
+        for (int col = 0; col < GravityConnectFour.COLS; col++) {
+            if (game.dropPiece(col, piece)) {
+                legal++;
+                game.undo();
+            }
+        }
+        return legal;
+    }
+
+    @Benchmark
+    public boolean checkWin() {
+        GravityConnectFour game = next();
+        return game.checkWin(game.getMoveCount() % 2 == 0 ? 'O' : 'X');
+    }
+
+    @Benchmark
+    public boolean lastMoveWon() {
+        return next().lastMoveWon();
+    }
+
+    @Benchmark
+    public boolean checkWinAt() {
+        GravityConnectFour game = next();
+        return game.getMoveCount() > 0 && game.checkWinAt(game.getLastRow(), game.getLastCol());
+    }
+
+    // chooseAction と同じく7列すべてについて勝ち手かを調べる
+    @Benchmark
+    public int isWinningMoveAllColumns() {
+        GravityConnectFour game = next();
+        char piece = Positions.sideToMove(game);
+        int wins = 0;
+        for (int col = 0; col < GravityConnectFour.COLS; col++) {
+            if (game.isWinningMove(col, piece)) {
+                wins++;
+            }
+        }
+        return wins;
+    }
+}
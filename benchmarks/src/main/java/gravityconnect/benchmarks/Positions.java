@@ -0,0 +1,43 @@
+package gravityconnect.benchmarks;
+
+import gravityconnect.GravityConnectFour;
+
+import java.util.Random;
+
+// ベンチマーク用の局面をランダム対局から再現性のある形で作る
+final class Positions {
+    private Positions() {
+    }
+
+    // まだ決着していない局面を count 個作る（手数は 0〜maxPlies のランダム）
+    static GravityConnectFour[] random(int count, int maxPlies, long seed) {
+        Random random = new Random(seed);
+        GravityConnectFour[] positions = new GravityConnectFour[count];
+        for (int i = 0; i < count; i++) {
+            positions[i] = randomGame(random, random.nextInt(maxPlies + 1));
+        }
+        return positions;
+    }
+
+    // plies 手まで（または決着の直前まで）ランダムに指した局面
+    static GravityConnectFour randomGame(Random random, int plies) {
+        GravityConnectFour game = new GravityConnectFour();
+        char piece = 'X';
+        while (game.getMoveCount() < plies) {
+            int col = random.nextInt(GravityConnectFour.COLS);
+            if (!game.dropPiece(col, piece)) {
+                continue;
+            }
+            if (game.lastMoveWon() || game.isFull()) {
+                game.undo();
+                break;
+            }
+            piece = piece == 'X' ? 'O' : 'X';
+        }
+        return game;
+    }
+
+    static char sideToMove(GravityConnectFour game) {
+        return game.getMoveCount() % 2 == 0 ? 'X' : 'O';
+    }
+}
@@ -0,0 +1,70 @@
+package gravityconnect.benchmarks;
+
+import gravityconnect.GravityConnectFour;
+import gravityconnect.QLearningAgent;
+import gravityconnect.QPrecision;
+import gravityconnect.QTable;
+import gravityconnect.SelfPlay;
+
+import java.util.Random;
+
+// Q 値の精度ごとに同じ種で自己対戦の学習を行い、学習後の 'O' 側の強さとヒープ使用量を比べる（JMH ではない）
+// 使い方: java -cp benchmarks/target/benchmarks.jar gravityconnect.benchmarks.PrecisionStrength [エピソード数]
+public class PrecisionStrength {
+    private static final int GAMES = 4000;
+
+    public static void main(String[] args) {
+        int episodes = args.length > 0 ? Integer.parseInt(args[0]) : 150000;
+        for (QPrecision precision : QPrecision.values()) {
+            System.gc();
+            long before = usedHeap();
+            QTable tableX = precision.newTable();
+            QTable tableO = precision.newTable();
+            SelfPlay selfPlay = new SelfPlay(new QLearningAgent(tableX, new Random(1)),
+                    new QLearningAgent(tableO, new Random(2)));
+            long start = System.nanoTime();
+            for (int episode = 0; episode < episodes; episode++) {
+                selfPlay.playEpisode();
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.gc();
+            long bytes = usedHeap() - before;
+            int states = tableX.size() + tableO.size();
+            System.out.printf("%-8s %.0f ep/s, %d states, %.1f heap bytes/state, win rate vs random %.3f%n",
+                    precision, episodes / seconds, states, (double) bytes / states, winRate(tableO));
+        }
+    }
+
+    // 探索なしの 'O' 側がランダムな 'X' 側に勝つ割合
+    private static double winRate(QTable table) {
+        Random random = new Random(9);
+        QLearningAgent agent = new QLearningAgent(table, new Random(7));
+        agent.setExplorationRate(0.0);
+        GravityConnectFour game = new GravityConnectFour();
+        int wins = 0;
+        for (int i = 0; i < GAMES; i++) {
+            game.reset();
+            char piece = 'X';
+            while (true) {
+                int col = piece == 'X' ? random.nextInt(GravityConnectFour.COLS) : agent.chooseAction(game);
+                if (!game.dropPiece(col, piece)) {
+                    continue;
+                }
+                if (game.lastMoveWon()) {
+                    wins += piece == 'O' ? 1 : 0;
+                    break;
+                }
+                if (game.isFull()) {
+                    break;
+                }
+                piece = piece == 'X' ? 'O' : 'X';
+            }
+        }
+        return (double) wins / GAMES;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,109 @@
+package gravityconnect.benchmarks;
+
+import gravityconnect.GravityConnectFour;
+import gravityconnect.HeapQTable;
+import gravityconnect.QPrecision;
+import gravityconnect.QTable;
+import gravityconnect.StripedQTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// 学習で実際に現れる局面のキーを tableSize 個入れたテーブルの参照と更新
+// float / fixed16 は Q 値の精度を落とした CompactQTable。参照1回あたりのキャッシュミスは
+// Linux なら -prof perfnorm を付けて L1-dcache-load-misses / LLC-load-misses を見る
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class QTableBenchmark {
+    private static final int PROBES = 1 << 16;
+
+    @Param({ "100000", "1000000", "4000000" })
+    public int tableSize;
+
+    @Param({ "heap", "striped", "float", "fixed16" })
+    public String kind;
+
+    private QTable table;
+    private long[] hits;
+    private long[] misses;
+    private final double[] row = new double[QTable.ACTIONS];
+    private int index;
+
+    @Setup
+    public void setUp() {
+        switch (kind) {
+            case "striped":
+                table = StripedQTable.onHeap(64);
+                break;
+            case "float":
+                table = QPrecision.FLOAT.newTable();
+                break;
+            case "fixed16":
+                table = QPrecision.FIXED16.newTable();
+                break;
+            default:
+                table = new HeapQTable();
+        }
+        Random random = new Random(42L);
+        while (table.size() < tableSize) {
+            table.update(randomKey(random), random.nextInt(QTable.ACTIONS), random.nextDouble() * 2 - 1, 0.1);
+        }
+        hits = new long[PROBES];
+        misses = new long[PROBES];
+        for (int i = 0; i < PROBES; i++) {
+            hits[i] = randomKey(random);
+            while (!table.contains(hits[i])) {
+                hits[i] = randomKey(random);
+            }
+            misses[i] = randomKey(random);
+            while (table.contains(misses[i])) {
+                misses[i] = randomKey(random);
+            }
+        }
+    }
+
+    private static long randomKey(Random random) {
+        return Positions.randomGame(random, 4 + random.nextInt(30)).getKey();
+    }
+
+    private int next() {
+        index = (index + 1) & (PROBES - 1);
+        return index;
+    }
+
+    @Benchmark
+    public boolean getRowHit() {
+        return table.getRow(hits[next()], row);
+    }
+
+    @Benchmark
+    public boolean getRowMiss() {
+        return table.getRow(misses[next()], row);
+    }
+
+    @Benchmark
+    public double maxValueHit() {
+        return table.maxValue(hits[next()]);
+    }
+
+    @Benchmark
+    public void updateHit() {
+        int i = next();
+        table.update(hits[i], i % GravityConnectFour.COLS, 0.5, 0.1);
+    }
+}
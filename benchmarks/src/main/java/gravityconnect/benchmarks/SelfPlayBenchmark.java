@@ -0,0 +1,40 @@
+package gravityconnect.benchmarks;
+
+import gravityconnect.HeapQTable;
+import gravityconnect.QLearningAgent;
+import gravityconnect.SelfPlay;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Main と同じ自己対戦1エピソードあたりのスループット（ops/s = エピソード/秒）
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class SelfPlayBenchmark {
+    private SelfPlay selfPlay;
+
+    @Setup
+    public void setUp() {
+        selfPlay = new SelfPlay(new QLearningAgent(new HeapQTable(), new Random(1)),
+                new QLearningAgent(new HeapQTable(), new Random(2)));
+    }
+
+    @Benchmark
+    public char playEpisode() {
+        return selfPlay.playEpisode();
+    }
+}
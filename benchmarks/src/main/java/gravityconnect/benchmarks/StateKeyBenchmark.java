@@ -0,0 +1,66 @@
+package gravityconnect.benchmarks;
+
+import gravityconnect.GravityConnectFour;
+import gravityconnect.QLearningAgent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// 状態キーの計算
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StateKeyBenchmark {
+    private static final int POSITIONS = 1024;
+
+    private GravityConnectFour[] positions;
+    private QLearningAgent agent;
+    private int index;
+
+    @Setup
+    public void setUp() {
+        positions = Positions.random(POSITIONS, 41, 42L);
+        agent = new QLearningAgent();
+    }
+
+    private GravityConnectFour next() {
+        index = (index + 1) & (POSITIONS - 1);
+        return positions[index];
+    }
+
+    // ビットボードから直接
+    @Benchmark
+    public long getKey() {
+        return next().getKey();
+    }
+
+    // 左右反転で正規化したキー
+    @Benchmark
+    public long canonicalKey() {
+        long key = next().getKey();
+        return Math.min(key, GravityConnectFour.mirror(key));
+    }
+
+    // char[][] 表現から（互換用の経路）
+    @Benchmark
+    public long keyFromCharBoard() {
+        return GravityConnectFour.key(next().getBoard());
+    }
+
+    @Benchmark
+    public long agentStateKey() {
+        return agent.getStateKey(next().getBoard());
+    }
+}
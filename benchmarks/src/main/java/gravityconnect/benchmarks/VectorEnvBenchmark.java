@@ -0,0 +1,74 @@
+package gravityconnect.benchmarks;
+
+import gravityconnect.GravityConnectFour;
+import gravityconnect.VectorEnv;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// ランダムな手での自己対戦の手数スループット（ops/s = 1秒あたりの手数）
+// VectorEnv で games 局をまとめて進める場合と、GravityConnectFour を1局ずつ進める場合を比べる
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VectorEnvBenchmark {
+    private static final int STEPS = 4096; // 1局ずつ進める場合の1回あたりの手数
+
+    @Param({ "1024" })
+    public int games;
+
+    private VectorEnv env;
+    private int[] actions;
+    private byte[] outcomes;
+    private final GravityConnectFour game = new GravityConnectFour();
+    private final Random random = new Random(42L);
+
+    @Setup
+    public void setUp() {
+        env = new VectorEnv(games);
+        actions = new int[games];
+        outcomes = new byte[games];
+    }
+
+    // 1回で games 手（手数/秒は ops/s × games）。手の選択（ランダム）も含む
+    @Benchmark
+    public byte[] vectorStep() {
+        env.randomActions(random, actions);
+        env.step(actions, outcomes);
+        return outcomes;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(STEPS)
+    public int objectStep() {
+        int finished = 0;
+        for (int i = 0; i < STEPS; i++) {
+            int legal = game.legalMoves();
+            for (int skip = random.nextInt(Integer.bitCount(legal)); skip > 0; skip--) {
+                legal &= legal - 1;
+            }
+            char piece = game.getMoveCount() % 2 == 0 ? 'X' : 'O';
+            game.dropPiece(Integer.numberOfTrailingZeros(legal), piece);
+            if (game.lastMoveWon() || game.isFull()) {
+                game.reset();
+                finished++;
+            }
+        }
+        return finished;
+    }
+}